@@ -0,0 +1,36 @@
+package xyz.deshik91.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Запускает все бенчмарки в однопоточном и многопоточном режиме с GC профайлером
+ * (throughput + gc.alloc.rate.norm на операцию).
+ *
+ * <pre>
+ *   mvn -Pbench test-compile exec:exec
+ *   mvn -Pbench test-compile exec:exec -Dbench.include=JwtBenchmark
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "xyz.deshik91.benchmark.*Benchmark";
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int threads : new int[]{1, cores}) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-result-" + threads + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
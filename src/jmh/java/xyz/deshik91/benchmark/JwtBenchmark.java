@@ -0,0 +1,45 @@
+package xyz.deshik91.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import xyz.deshik91.security.JwtUtil;
+import xyz.deshik91.security.ParsedToken;
+import xyz.deshik91.security.SigningKeyRing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость подписи и проверки JWT без кеша.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(new SigningKeyRing("", true, 0, 0), new SimpleMeterRegistry());
+        accessToken = jwtUtil.generateAccessToken("bench@example.com");
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken("bench@example.com");
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken("bench@example.com");
+    }
+
+    @Benchmark
+    public ParsedToken parseToken() {
+        return jwtUtil.parseToken(accessToken);
+    }
+}
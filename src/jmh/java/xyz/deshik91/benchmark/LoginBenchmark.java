@@ -0,0 +1,89 @@
+package xyz.deshik91.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import xyz.deshik91.AuthApplication;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.response.AuthResponse;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.service.AuthService;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный логин: throughput и занятость пула Hikari под нагрузкой.
+ * Отношение activeConnections / samples - среднее число занятых соединений, замеренное после каждого логина
+ * (остальные потоки в этот момент где-то посередине своей операции). Пока BCrypt выполняется вне транзакции,
+ * оно остается близким к нулю даже при числе потоков больше размера пула.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private HikariDataSource dataSource;
+    private LoginRequest loginRequest;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PoolCounters {
+        public long activeConnections;
+        public long samples;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            activeConnections = 0;
+            samples = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AuthApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--auth.jwt.allow-ephemeral-key=true");
+        authService = context.getBean(AuthService.class);
+        dataSource = context.getBean(HikariDataSource.class);
+
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("BENCH");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(24 * 60 * 60));
+        invitation.setCreatedAt(Instant.now());
+        context.getBean(InvitationRepository.class).save(invitation);
+
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("bench@example.com");
+        request.setPassword("password123");
+        request.setInvitationCode("BENCH");
+        authService.register(request);
+
+        loginRequest = new LoginRequest();
+        loginRequest.setEmail("bench@example.com");
+        loginRequest.setPassword("password123");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AuthResponse login(PoolCounters counters) {
+        AuthResponse response = authService.login(loginRequest);
+        counters.activeConnections += dataSource.getHikariPoolMXBean().getActiveConnections();
+        counters.samples++;
+        return response;
+    }
+}
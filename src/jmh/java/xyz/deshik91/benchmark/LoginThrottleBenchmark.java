@@ -0,0 +1,50 @@
+package xyz.deshik91.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import xyz.deshik91.security.LoginThrottle;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость проверки лимита попыток входа. В многопоточном прогоне (BenchmarkRunner запускает
+ * и по потоку на ядро) показывает, что общие счетчики не становятся точкой конкуренции.
+ * Лимиты заданы огромными, чтобы измерять сам путь проверки, а не выброс исключения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginThrottleBenchmark {
+
+    private LoginThrottle throttle;
+    private String[] emails;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        throttle = new LoginThrottle(new SimpleMeterRegistry(), true, 65536,
+                1_000_000, Integer.MAX_VALUE, true, 1_000_000, Integer.MAX_VALUE, "native");
+        emails = new String[4096];
+        ips = new String[4096];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "user" + i + "@example.com";
+            ips[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public void checkDistinctKeys() {
+        int i = ThreadLocalRandom.current().nextInt(emails.length);
+        throttle.check(emails[i], ips[i]);
+    }
+
+    @Benchmark
+    public void checkSameKey() {
+        // Худший случай: все потоки бьют в одни и те же слоты
+        throttle.check(emails[0], ips[0]);
+    }
+}
@@ -0,0 +1,110 @@
+package xyz.deshik91.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import xyz.deshik91.AuthApplication;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.response.AuthResponse;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение платформенных и виртуальных потоков Tomcat по HTTP.
+ * /refresh - путь, упирающийся в JDBC (чтение пользователя + запись токена), без BCrypt.
+ * SampleTime дает p99 (смотреть строку p0.99), Throughput - запросы в секунду.
+ * Пул Tomcat намеренно маленький, чтобы при -t больше 16 платформенный режим упирался в потоки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    ConfigurableApplicationContext context;
+    HttpClient httpClient;
+    ObjectMapper objectMapper;
+    String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AuthApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=16",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--auth.jwt.allow-ephemeral-key=true");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/auth";
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        objectMapper = new ObjectMapper();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * У каждого потока свой пользователь, чтобы параллельные refresh не отзывали токены друг друга.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        String refreshToken;
+
+        @Setup
+        public void register(ThreadModeBenchmark benchmark) throws Exception {
+            String code = UUID.randomUUID().toString();
+            InvitationEntity invitation = new InvitationEntity();
+            invitation.setCode(code);
+            invitation.setUsed(false);
+            invitation.setExpiresAt(Instant.now().plusSeconds(24 * 60 * 60));
+            invitation.setCreatedAt(Instant.now());
+            benchmark.context.getBean(InvitationRepository.class).save(invitation);
+
+            RegisterRequest request = new RegisterRequest();
+            request.setEmail(code + "@example.com");
+            request.setPassword("password123");
+            request.setInvitationCode(code);
+            refreshToken = benchmark.post("/register", request).getRefreshToken();
+        }
+    }
+
+    @Benchmark
+    public AuthResponse refresh(Session session) throws Exception {
+        AuthResponse response = post("/refresh", Map.of("refreshToken", session.refreshToken));
+        session.refreshToken = response.getRefreshToken();
+        return response;
+    }
+
+    AuthResponse post(String path, Object body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " -> " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readValue(response.body(), AuthResponse.class);
+    }
+}
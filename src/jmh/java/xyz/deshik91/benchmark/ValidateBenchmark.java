@@ -0,0 +1,73 @@
+package xyz.deshik91.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import xyz.deshik91.AuthApplication;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.response.ValidateResponse;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.security.VerifiedTokenCache;
+import xyz.deshik91.service.AuthService;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/auth/validate целиком (без HTTP) на поднятом Spring контексте с H2 из src/test/resources.
+ * validateCached - типичный путь gateway, validateUncached - первый запрос с новым токеном.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidateBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private VerifiedTokenCache tokenCache;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AuthApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--auth.jwt.allow-ephemeral-key=true");
+        authService = context.getBean(AuthService.class);
+        tokenCache = context.getBean(VerifiedTokenCache.class);
+
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("BENCH");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(24 * 60 * 60));
+        invitation.setCreatedAt(Instant.now());
+        context.getBean(InvitationRepository.class).save(invitation);
+
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("bench@example.com");
+        request.setPassword("password123");
+        request.setInvitationCode("BENCH");
+        authorizationHeader = "Bearer " + authService.register(request).getAccessToken();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ValidateResponse validateCached() {
+        return authService.validateToken(authorizationHeader);
+    }
+
+    @Benchmark
+    public ValidateResponse validateUncached() {
+        // Сбрасываем кеш, чтобы каждый вызов проверял подпись заново
+        tokenCache.invalidateAll();
+        return authService.validateToken(authorizationHeader);
+    }
+}
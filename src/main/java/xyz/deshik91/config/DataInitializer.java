@@ -3,8 +3,8 @@ package xyz.deshik91.config;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
-import xyz.deshik91.entity.InvitationEntity;
-import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.model.Invitation;
+import xyz.deshik91.store.InvitationStore;
 
 import java.time.Instant;
 
@@ -12,26 +12,27 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
-    private final InvitationRepository invitationRepository;
+    private final InvitationStore invitationStore;
 
     @Override
     public void run(String... args) throws Exception {
         // Создаем тестовые инвайты только если их нет
-        if (invitationRepository.count() == 0) {
-            InvitationEntity defaultInv = new InvitationEntity();
-            defaultInv.setCode("WELCOME2024");
-            defaultInv.setUsed(false);
-            defaultInv.setExpiresAt(Instant.now().plusSeconds(30 * 24 * 60 * 60)); // 30 дней
-            defaultInv.setCreatedAt(Instant.now());
-            invitationRepository.save(defaultInv);
+        if (invitationStore.count() == 0) {
+            invitationStore.save(new Invitation(
+                    "WELCOME2024",
+                    null,  // любой email может использовать
+                    false,
+                    Instant.now().plusSeconds(30 * 24 * 60 * 60), // 30 дней
+                    Instant.now()
+            ));
 
-            InvitationEntity specificInv = new InvitationEntity();
-            specificInv.setCode("FOR_DESHIK");
-            specificInv.setEmail("deshik@example.com");
-            specificInv.setUsed(false);
-            specificInv.setExpiresAt(Instant.now().plusSeconds(30 * 24 * 60 * 60));
-            specificInv.setCreatedAt(Instant.now());
-            invitationRepository.save(specificInv);
+            invitationStore.save(new Invitation(
+                    "FOR_DESHIK",
+                    "deshik@example.com",
+                    false,
+                    Instant.now().plusSeconds(30 * 24 * 60 * 60),
+                    Instant.now()
+            ));
         }
     }
 }
\ No newline at end of file
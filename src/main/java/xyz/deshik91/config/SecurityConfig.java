@@ -1,34 +1,76 @@
 package xyz.deshik91.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import xyz.deshik91.security.AdminApiKeyFilter;
+import xyz.deshik91.security.PasswordEncoderCalibrator;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * Хеши хранятся с префиксом алгоритма ({bcrypt}, {argon2}, {pbkdf2}); старые хеши без префикса - BCrypt.
+     * Стоимость алгоритма по умолчанию подбирается при старте под auth.password.target-ms,
+     * заданные strength/iterations служат нижней границей. Перехеширование при логине только повышает стоимость:
+     * калибровка своя на каждом узле, и на кластере из разного железа хеш иначе прыгал бы между cost.
+     * PBKDF2 не калибруется:
+     * число итераций не хранится в хеше, и его изменение сломало бы проверку уже сохраненных паролей.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.encoder:bcrypt}") String encoderId,
+                                           @Value("${auth.password.calibrate:true}") boolean calibrate,
+                                           @Value("${auth.password.target-ms:50}") long targetMs,
+                                           @Value("${auth.password.bcrypt.strength:10}") int bcryptStrength,
+                                           @Value("${auth.password.argon2.iterations:2}") int argon2Iterations) {
+        if (calibrate && "bcrypt".equals(encoderId)) {
+            bcryptStrength = PasswordEncoderCalibrator.calibrateBCrypt(targetMs, bcryptStrength);
+        }
+        if (calibrate && "argon2".equals(encoderId)) {
+            argon2Iterations = PasswordEncoderCalibrator.calibrateArgon2(targetMs, argon2Iterations);
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2", PasswordEncoderCalibrator.argon2(argon2Iterations));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(encoderId)) {
+            throw new IllegalStateException("Неизвестный алгоритм хеширования паролей: " + encoderId);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encoderId, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return passwordEncoder;
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${auth.admin.api-key:}") String adminApiKey) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()  // все эндпоинты аутентификации открыты
-                        .requestMatchers("/api/admin/**").hasRole("ADMIN")  // для админов потом
+                        .requestMatchers("/.well-known/jwks.json").permitAll()  // публичные ключи для проверки токенов
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()  // проверки живости и сбор метрик
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")  // ключ из X-Admin-Key
                         .anyRequest().authenticated()
-                );
+                )
+                .addFilterBefore(new AdminApiKeyFilter(adminApiKey), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package xyz.deshik91.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import xyz.deshik91.monitoring.DbTimingListener;
+import xyz.deshik91.monitoring.ServerTimingFilter;
+
+/**
+ * Заголовок Server-Timing с разбивкой по стадиям (auth.server-timing.enabled=true).
+ * Выключенный режим ничего не регистрирует: ни фильтра, ни слушателя сессий Hibernate.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${auth.server-timing.sample-rate:0.01}") double sampleRate) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(sampleRate));
+        registration.addUrlPatterns("/api/auth/*");
+        // Раньше Spring Security, чтобы total включал всю обработку запроса
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer dbTimingListenerCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, DbTimingListener.class.getName());
+    }
+}
@@ -0,0 +1,34 @@
+package xyz.deshik91.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Режим виртуальных потоков (spring.threads.virtual.enabled=true).
+ * Сами потоки Tomcat и @Scheduled переключает Spring Boot, здесь - только ограничение конкурентности к БД:
+ * семафор по размеру пула Hikari, чтобы тысячи виртуальных потоков не выстраивались внутри пула.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    // Пока пул не запущен, незаданный размер равен -1 - Hikari подставит свое значение по умолчанию позже
+                    int poolSize = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                    return new ConnectionLimitingDataSource(hikari, poolSize, hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
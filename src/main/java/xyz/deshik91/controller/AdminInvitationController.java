@@ -0,0 +1,60 @@
+package xyz.deshik91.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import xyz.deshik91.dto.request.GenerateInvitationsRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.service.InvitationService;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Служебные операции над инвайтами. Доступ - по ключу из заголовка X-Admin-Key.
+ */
+@RestController
+@Profile("!memory")
+@RequestMapping("/api/admin/invitations")
+@RequiredArgsConstructor
+public class AdminInvitationController {
+
+    static final String CSV = "text/csv";
+
+    private final InvitationService invitationService;
+
+    /**
+     * Генерирует инвайты и сразу отдает их в CSV (code,email,expires_at) пачка за пачкой.
+     */
+    @PostMapping("/generate")
+    public void generate(@Valid @RequestBody GenerateInvitationsRequest request,
+                         HttpServletResponse response) {
+        // Тип ответа, writer и заголовок CSV - только с первой пачкой:
+        // ошибка в запросе должна уйти обычным JSON с 400
+        boolean[] headerWritten = {false};
+        invitationService.generate(request, batch -> {
+            try {
+                if (!headerWritten[0]) {
+                    response.setContentType(CSV);
+                    response.setCharacterEncoding("UTF-8");
+                    response.getWriter().println("code,email,expires_at");
+                    headerWritten[0] = true;
+                }
+                PrintWriter writer = response.getWriter();
+                for (InvitationEntity invitation : batch) {
+                    writer.print(invitation.getCode());
+                    writer.print(',');
+                    writer.print(invitation.getEmail() != null ? invitation.getEmail() : "");
+                    writer.print(',');
+                    writer.println(invitation.getExpiresAt());
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import xyz.deshik91.dto.response.UserExportRow;
+import xyz.deshik91.service.UserExportService;
+import xyz.deshik91.service.UserImportService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Служебные операции над пользователями. Доступ - по ключу из заголовка X-Admin-Key.
+ */
+@RestController
+@Profile("!memory")
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Импорт пользователей из NDJSON ({"email":..., "passwordHash":..., "createdAt":...} на строку)
+     * или CSV (email,password_hash[,created_at]). В ответ построчно идет прогресс после каждой пачки.
+     */
+    @PostMapping(value = "/import", consumes = {NDJSON, CSV}, produces = NDJSON)
+    public void importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        UserImportService.Format format = contentType.startsWith(CSV)
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        userImportService.importUsers(request.getInputStream(), format, progress -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(progress));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Выгрузка всех пользователей в NDJSON ({"id":..., "email":..., "createdAt":...} на строку) по возрастанию id.
+     * Строки пишутся прямо в ответ постранично; прерванную выгрузку можно продолжить с afterId = последний id.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportUsers(@RequestParam(defaultValue = "0") long afterId,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream());
+        userExportService.exportUsers(afterId, page -> {
+            try {
+                for (UserExportRow row : page) {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+}
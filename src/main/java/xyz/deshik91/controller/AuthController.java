@@ -1,23 +1,31 @@
 package xyz.deshik91.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import xyz.deshik91.dto.request.BatchValidateRequest;
 import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.LogoutRequest;
 import xyz.deshik91.dto.request.RefreshTokenRequest;
 import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.request.RevokeTokenRequest;
 import xyz.deshik91.dto.response.AuthResponse;
 import xyz.deshik91.dto.response.ValidateResponse;
+import xyz.deshik91.security.LoginThrottle;
 import xyz.deshik91.service.AuthService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -26,7 +34,10 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              HttpServletRequest httpRequest) {
+        // Лимит попыток - до БД и BCrypt, чтобы перебор паролей почти ничего не стоил
+        loginThrottle.check(request.getEmail(), httpRequest.getRemoteAddr());
         AuthResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
@@ -37,6 +48,24 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody LogoutRequest request) {
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logoutAll(request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@Valid @RequestBody RevokeTokenRequest request) {
+        authService.revoke(request);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/validate")
     public ResponseEntity<ValidateResponse> validate(@RequestHeader(value = "Authorization", required = false) String authorization) {
         // Если заголовка нет - сразу возвращаем 401
@@ -53,4 +82,9 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/validate/batch")
+    public ResponseEntity<List<ValidateResponse>> validateBatch(@Valid @RequestBody BatchValidateRequest request) {
+        return ResponseEntity.ok(authService.validateTokens(request.getTokens()));
+    }
+}
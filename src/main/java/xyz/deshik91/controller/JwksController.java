@@ -0,0 +1,29 @@
+package xyz.deshik91.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import xyz.deshik91.security.JwtUtil;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публичные ключи для локальной проверки access токенов в других сервисах.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtUtil jwtUtil;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(Map.of("keys", jwtUtil.publicJwks()));
+    }
+}
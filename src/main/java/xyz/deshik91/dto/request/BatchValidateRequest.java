@@ -0,0 +1,14 @@
+package xyz.deshik91.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchValidateRequest {
+    @NotEmpty(message = "Список токенов не должен быть пустым")
+    @Size(max = 1000, message = "Не более 1000 токенов за запрос")
+    private List<String> tokens;  // токены без префикса "Bearer "
+}
@@ -0,0 +1,22 @@
+package xyz.deshik91.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GenerateInvitationsRequest {
+    @Min(value = 1, message = "Нужен хотя бы один код")
+    @Max(value = 100000, message = "Не более 100000 кодов за запрос")
+    private Integer count;  // сколько кодов для любого email
+
+    @Size(max = 100000, message = "Не более 100000 email за запрос")
+    private List<String> emails;  // если задан - по одному коду на каждый email, count не нужен
+
+    @Min(value = 1, message = "Срок действия - хотя бы один день")
+    @Max(value = 365, message = "Срок действия - не более 365 дней")
+    private int validDays = 30;
+}
@@ -0,0 +1,15 @@
+package xyz.deshik91.dto.request;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Одна строка NDJSON при импорте пользователей. Пароль передается уже захешированным.
+ */
+@Data
+public class ImportUserRecord {
+    private String email;
+    private String passwordHash;  // {bcrypt}..., {argon2}..., {pbkdf2}... или BCrypt без префикса
+    private Instant createdAt;    // если null - время импорта
+}
@@ -3,6 +3,7 @@ package xyz.deshik91.dto.request;
 import lombok.Data;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import xyz.deshik91.model.User;
 
 @Data
 public class LoginRequest {
@@ -12,4 +13,9 @@ public class LoginRequest {
 
     @NotBlank
     private String password;
+
+    // Email приводится к единой форме при разборе запроса, дальше по коду идет только она
+    public void setEmail(String email) {
+        this.email = User.normalizeEmail(email);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package xyz.deshik91.dto.request;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+public class LogoutRequest {
+    @NotBlank
+    private String refreshToken;
+
+    private String accessToken;  // если передан - отзывается вместе с сессией
+}
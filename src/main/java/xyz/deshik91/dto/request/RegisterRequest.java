@@ -4,6 +4,7 @@ import lombok.Data;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import xyz.deshik91.model.User;
 
 @Data
 public class RegisterRequest {
@@ -17,4 +18,9 @@ public class RegisterRequest {
 
     @NotBlank(message = "Инвайт-код обязателен")
     private String invitationCode;
+
+    // Email приводится к единой форме при разборе запроса, дальше по коду идет только она
+    public void setEmail(String email) {
+        this.email = User.normalizeEmail(email);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package xyz.deshik91.dto.request;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+public class RevokeTokenRequest {
+    @NotBlank
+    private String token;  // access или refresh
+}
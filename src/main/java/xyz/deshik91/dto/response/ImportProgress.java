@@ -0,0 +1,19 @@
+package xyz.deshik91.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Прогресс импорта: отправляется строкой NDJSON после каждой пачки, последняя строка - с done = true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgress {
+    private long processed;  // прочитано записей
+    private long imported;   // создано пользователей
+    private long skipped;    // email уже есть в БД или повторяется во входных данных
+    private long invalid;    // запись не разобрана или без email/хеша
+    private boolean done;
+}
@@ -0,0 +1,19 @@
+package xyz.deshik91.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Строка выгрузки пользователей. Хеш пароля не выгружается.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportRow {
+    private Long id;
+    private String email;
+    private Instant createdAt;
+}
@@ -0,0 +1,31 @@
+package xyz.deshik91.entity;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Сущность, ключ которой назначает приложение (jti, имя задачи), а не БД.
+ * По непустому id Spring Data считал бы такую сущность существующей и делал бы merge
+ * с лишним SELECT перед вставкой, поэтому новизна отслеживается явно: новая до первой
+ * записи или загрузки из БД.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity<ID> implements Persistable<ID> {
+
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -8,14 +8,18 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "invitations")
+@Table(name = "invitations", indexes = {
+        @Index(name = "idx_invitations_expires_at", columnList = "expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class InvitationEntity {
 
+    // Последовательность с pooled-оптимизатором, чтобы массовая генерация инвайтов вставляла строки пачками
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invitations_seq")
+    @SequenceGenerator(name = "invitations_seq", sequenceName = "invitations_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
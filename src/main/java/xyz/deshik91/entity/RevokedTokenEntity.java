@@ -0,0 +1,41 @@
+package xyz.deshik91.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Отозванный до истечения срока токен. Хранится только jti и exp: после exp токен
+ * и так отклоняется проверкой подписи, и запись больше не нужна.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedTokenEntity extends AssignedIdEntity<String> {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // По этому времени другие узлы подтягивают новые отзывы
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+}
@@ -0,0 +1,36 @@
+package xyz.deshik91.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Аренда фоновой задачи: задачу выполняет узел owner, пока не истек locked_until.
+ */
+@Entity
+@Table(name = "scheduler_locks")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLockEntity extends AssignedIdEntity<String> {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    @Override
+    public String getId() {
+        return name;
+    }
+}
@@ -0,0 +1,63 @@
+package xyz.deshik91.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Сессия одного устройства: действующий refresh токен пользователя.
+ * Ключ - jti токена, поэтому refresh ищет сессию по первичному ключу, не трогая строку в users.
+ * Сам токен не хранится - только его SHA-256.
+ */
+@Entity
+@Table(name = "sessions", indexes = {
+        @Index(name = "idx_sessions_user_id", columnList = "user_id"),
+        @Index(name = "idx_sessions_expires_at", columnList = "expires_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionEntity extends AssignedIdEntity<String> {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Только ради внешнего ключа с ON DELETE CASCADE: при удалении пользователя уходят и его сессии
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private UserEntity user;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public SessionEntity(String jti, Long userId, String tokenHash, Instant createdAt, Instant expiresAt) {
+        this.jti = jti;
+        this.userId = userId;
+        this.tokenHash = tokenHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+}
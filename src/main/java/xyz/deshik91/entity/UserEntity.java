@@ -4,29 +4,42 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserEntity {
 
+    // Последовательность с pooled-оптимизатором: id выдаются блоками по 50 без запроса на каждую строку,
+    // и Hibernate может отправлять INSERT пачками (с IDENTITY пакетная вставка отключается)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
+    // Хранится в нижнем регистре (User.normalizeEmail); в PostgreSQL уникальность дополнительно
+    // держит индекс по lower(email) (миграция V3)
     @Column(nullable = false, unique = true)
     private String email;
 
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
 
-    @Column(name = "refresh_token")
-    private String refreshToken;
-
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
+
+    // Версия токенов пользователя (claim "ver"): увеличение отзывает сразу все выданные ему токены
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
+    // Когда версия токенов менялась последний раз: по нему узлы синхронизируют только изменения
+    @Column(name = "token_version_changed_at")
+    private Instant tokenVersionChangedAt;
 }
\ No newline at end of file
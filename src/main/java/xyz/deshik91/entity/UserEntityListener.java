@@ -0,0 +1,55 @@
+package xyz.deshik91.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import xyz.deshik91.service.TokenVersionCache;
+import xyz.deshik91.service.UserEmailIndex;
+
+/**
+ * Держит {@link UserEmailIndex} и {@link TokenVersionCache} в актуальном состоянии
+ * при вставке и удалении пользователей на этом узле.
+ */
+public class UserEntityListener {
+
+    private final UserEmailIndex userEmailIndex;
+    private final TokenVersionCache tokenVersions;
+
+    public UserEntityListener(@Lazy UserEmailIndex userEmailIndex, @Lazy TokenVersionCache tokenVersions) {
+        this.userEmailIndex = userEmailIndex;
+        this.tokenVersions = tokenVersions;
+    }
+
+    @PostPersist
+    public void onPersist(UserEntity user) {
+        String email = user.getEmail();
+        // PostPersist срабатывает при flush, до коммита: при откате (конфликт регистрации, упавшая пачка импорта)
+        // в индексе остался бы несуществующий email, поэтому добавляем только после коммита
+        afterCommit(() -> userEmailIndex.add(email));
+    }
+
+    @PostRemove
+    public void onRemove(UserEntity user) {
+        String email = user.getEmail();
+        // После коммита: идущая в это время пересборка индекса могла еще прочитать удаляемую строку,
+        // а изменение после коммита она применит поверх прочитанного
+        afterCommit(() -> userEmailIndex.remove(email));
+        // Пользователь с тем же email, зарегистрированный заново, начинает с версии 0
+        tokenVersions.forget(email);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
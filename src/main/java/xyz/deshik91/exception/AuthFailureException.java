@@ -0,0 +1,34 @@
+package xyz.deshik91.exception;
+
+import lombok.Getter;
+
+/**
+ * Ожидаемый отказ в аутентификации (неверный пароль, истекший или отозванный токен и т.п.) - отвечаем 400.
+ * Причина попадает в тег outcome метрик. Стек не собирается: такие отказы идут потоком при переборе
+ * паролей и мусорных токенах, а место их возникновения и так известно.
+ */
+@Getter
+public class AuthFailureException extends RuntimeException {
+
+    public enum Reason {
+        BAD_CREDENTIALS,
+        EXPIRED,
+        REVOKED,
+        INVALID,
+        CONFLICT,
+        REJECTED;
+
+        private final String tag = name().toLowerCase();
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final Reason reason;
+
+    public AuthFailureException(Reason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,17 @@
+package xyz.deshik91.exception;
+
+import lombok.Getter;
+
+/**
+ * Сервис временно не принимает дорогие операции (очередь переполнена) - отвечаем 503 с Retry-After.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package xyz.deshik91.exception;
+
+import lombok.Getter;
+
+/**
+ * Клиент превысил лимит попыток - отвечаем 429 с Retry-After.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.Locale;
 
 @Data
 @NoArgsConstructor
@@ -12,7 +13,15 @@ import java.time.Instant;
 public class User {
     private Long id;
     private String email;
-    private String passwordHash;  // Будем хранить BCrypt хеш
-    private String refreshToken;  // Текущий refresh токен (для инвалидации)
+    private String passwordHash;  // Хеш с префиксом алгоритма ({bcrypt}, {argon2}, ...)
+    private int tokenVersion;     // Увеличивается при выходе со всех устройств
     private Instant createdAt;
+
+    /**
+     * Единственная форма email, в которой он хранится, сравнивается и попадает в subject токенов:
+     * Foo@Example.com и foo@example.com - один пользователь. Применяется на входе (DTO, импорт, инвайты).
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.toLowerCase(Locale.ROOT) : null;
+    }
 }
\ No newline at end of file
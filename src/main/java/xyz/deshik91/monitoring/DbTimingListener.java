@@ -0,0 +1,57 @@
+package xyz.deshik91.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Время JDBC (получение соединения, prepare, execute, batch) и число выполненных SQL для Server-Timing.
+ * Hibernate создает экземпляр на каждую сессию (hibernate.session.events.auto), поэтому поля не разделяются
+ * между потоками. Подключается, только если Server-Timing включен.
+ */
+public class DbTimingListener implements SessionEventListener {
+
+    private long acquisitionStart;
+    private long prepareStart;
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTimings.addDb(System.nanoTime() - acquisitionStart, 0);
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        prepareStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        RequestTimings.addDb(System.nanoTime() - prepareStart, 0);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.addDb(System.nanoTime() - executeStart, 1);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        // Пачка - один поход в БД
+        RequestTimings.addDb(System.nanoTime() - batchStart, 1);
+    }
+}
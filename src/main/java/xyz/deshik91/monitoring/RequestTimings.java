@@ -0,0 +1,171 @@
+package xyz.deshik91.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Разбивка времени одного запроса по стадиям для заголовка Server-Timing:
+ * хеширование пароля, JWT, БД (с числом SQL) и выделенные байты.
+ * Запись привязана к потоку запроса. Пока запись выключена, вызовы add* сводятся к чтению
+ * одного volatile-флага - без ThreadLocal и без выделения памяти.
+ *
+ * <p>Байты считаются на потоке запроса и в работе, вынесенной на другие потоки через
+ * {@link #trackAllocations} (BCrypt в пуле хеширования, параллельная проверка подписей) - это
+ * как раз самые крупные источники выделений. Для виртуального потока запроса счетчика JVM нет:
+ * тогда в заголовке только вынесенная работа, под отдельным именем alloc-offloaded.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private static volatile boolean enabled;
+
+    private final long startNanos = System.nanoTime();
+    private final long startAllocatedBytes = allocatedBytes();
+    private final Thread owner = Thread.currentThread();
+    // Пишут потоки пула и ForkJoin, иногда одновременно
+    private final AtomicLong offloadedAllocatedBytes = new AtomicLong();
+    private long hashNanos;
+    private long jwtNanos;
+    private long dbNanos;
+    private int sqlStatements;
+
+    private RequestTimings() {
+    }
+
+    static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Начинает запись на текущем потоке; вернуть ее нужно через {@link #stop()}.
+     */
+    static RequestTimings start() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    private static RequestTimings current() {
+        return enabled ? CURRENT.get() : null;
+    }
+
+    public static void addHash(long nanos) {
+        RequestTimings timings = current();
+        if (timings != null) {
+            timings.hashNanos += nanos;
+        }
+    }
+
+    public static void addJwt(long nanos) {
+        RequestTimings timings = current();
+        if (timings != null) {
+            timings.jwtNanos += nanos;
+        }
+    }
+
+    static void addDb(long nanos, int statements) {
+        RequestTimings timings = current();
+        if (timings != null) {
+            timings.dbNanos += nanos;
+            timings.sqlStatements += statements;
+        }
+    }
+
+    /**
+     * Оборачивает задачу, которая будет выполнена на другом потоке: выделенные ею байты
+     * добавятся к текущему запросу. Вызывается на потоке запроса; без записи возвращает задачу как есть.
+     */
+    public static <T> Callable<T> trackAllocations(Callable<T> task) {
+        RequestTimings timings = current();
+        if (timings == null || THREADS == null) {
+            return task;
+        }
+        return () -> {
+            long before = allocatedBytes();
+            try {
+                return task.call();
+            } finally {
+                timings.addOffloaded(before);
+            }
+        };
+    }
+
+    /**
+     * То же для функции параллельного стрима: каждый вызов на рабочем потоке добавляет свои байты.
+     */
+    public static <T, R> Function<T, R> trackAllocations(Function<T, R> function) {
+        RequestTimings timings = current();
+        if (timings == null || THREADS == null) {
+            return function;
+        }
+        return value -> {
+            long before = allocatedBytes();
+            try {
+                return function.apply(value);
+            } finally {
+                timings.addOffloaded(before);
+            }
+        };
+    }
+
+    private void addOffloaded(long before) {
+        // Параллельный стрим выполняет часть элементов на самом потоке запроса - они уже в его счетчике
+        if (Thread.currentThread() == owner) {
+            return;
+        }
+        long after = allocatedBytes();
+        if (before >= 0 && after >= 0) {
+            offloadedAllocatedBytes.addAndGet(after - before);
+        }
+    }
+
+    /**
+     * Значение заголовка Server-Timing на текущий момент.
+     */
+    String toHeader() {
+        StringBuilder header = new StringBuilder(128);
+        appendDuration(header, "hash", hashNanos);
+        header.append(", ");
+        appendDuration(header, "jwt", jwtNanos);
+        header.append(", ");
+        appendDuration(header, "db", dbNanos);
+        header.append(", sql;desc=\"").append(sqlStatements).append('"');
+        long allocatedBytes = allocatedBytes();
+        long offloaded = offloadedAllocatedBytes.get();
+        // Для виртуальных потоков и JVM без поддержки счетчик недоступен (-1)
+        if (startAllocatedBytes >= 0 && allocatedBytes >= 0) {
+            header.append(", alloc;desc=\"").append(allocatedBytes - startAllocatedBytes + offloaded).append('"');
+        } else if (offloaded > 0) {
+            header.append(", alloc-offloaded;desc=\"").append(offloaded).append('"');
+        }
+        header.append(", ");
+        appendDuration(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendDuration(StringBuilder header, String name, long nanos) {
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}
@@ -1,13 +1,40 @@
 package xyz.deshik91.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import xyz.deshik91.entity.InvitationEntity;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface InvitationRepository extends JpaRepository<InvitationEntity, Long> {
     Optional<InvitationEntity> findByCode(String code);
     boolean existsByCode(String code);
-}
\ No newline at end of file
+
+    /**
+     * Удаляет не больше limit истекших или давно использованных инвайтов за один вызов.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from invitations where id in " +
+            "(select id from invitations where expires_at < :expiredBefore " +
+            "or (used = true and created_at < :usedBefore) limit :limit)", nativeQuery = true)
+    int deleteStaleChunk(@Param("expiredBefore") Instant expiredBefore,
+                         @Param("usedBefore") Instant usedBefore,
+                         @Param("limit") int limit);
+
+    /**
+     * Атомарно занимает инвайт: проверка и пометка used в одном UPDATE, поэтому один код нельзя использовать дважды.
+     * Возвращает 1, если инвайт занят этим вызовом, и 0, если он не подходит.
+     */
+    @Modifying
+    @Query("update InvitationEntity i set i.used = true " +
+            "where i.code = :code and i.used = false and i.expiresAt > :now " +
+            "and (i.email is null or i.email = :email)")
+    int claim(@Param("code") String code, @Param("email") String email, @Param("now") Instant now);
+}
@@ -0,0 +1,25 @@
+package xyz.deshik91.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import xyz.deshik91.entity.RevokedTokenEntity;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedTokenEntity, String> {
+    List<RevokedTokenEntity> findByExpiresAtAfter(Instant now);
+    List<RevokedTokenEntity> findByRevokedAtAfterAndExpiresAtAfter(Instant since, Instant now);
+
+    // После exp запись не нужна: такой токен и так не пройдет проверку подписи
+    @Transactional
+    @Modifying
+    @Query(value = "delete from revoked_tokens where jti in " +
+            "(select jti from revoked_tokens where expires_at < :before limit :limit)", nativeQuery = true)
+    int deleteExpiredChunk(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -0,0 +1,27 @@
+package xyz.deshik91.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import xyz.deshik91.entity.SchedulerLockEntity;
+
+import java.time.Instant;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLockEntity, String> {
+
+    /**
+     * Берет или продлевает аренду одним UPDATE: успешно, если аренда истекла или уже принадлежит этому узлу.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLockEntity l set l.owner = :owner, l.lockedUntil = :lockedUntil " +
+            "where l.name = :name and (l.lockedUntil < :now or l.owner = :owner)")
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("lockedUntil") Instant lockedUntil);
+}
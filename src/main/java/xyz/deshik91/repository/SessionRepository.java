@@ -0,0 +1,53 @@
+package xyz.deshik91.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import xyz.deshik91.entity.SessionEntity;
+
+import java.time.Instant;
+
+@Repository
+public interface SessionRepository extends JpaRepository<SessionEntity, String> {
+
+    /**
+     * Ротация refresh токена одним compare-and-swap: строка меняется, только если в ней все еще старый токен.
+     * Из двух одновременных refresh с одним токеном 1 вернет ровно один.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "update sessions set jti = :newJti, token_hash = :newHash, expires_at = :newExpiresAt " +
+            "where jti = :oldJti and token_hash = :oldHash", nativeQuery = true)
+    int rotate(@Param("oldJti") String oldJti,
+               @Param("oldHash") String oldHash,
+               @Param("newJti") String newJti,
+               @Param("newHash") String newHash,
+               @Param("newExpiresAt") Instant newExpiresAt);
+
+    /**
+     * Удаляет не больше limit истекших сессий. Небольшие порции не держат долгих блокировок
+     * и не создают всплесков работы для VACUUM.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from sessions where jti in " +
+            "(select jti from sessions where expires_at < :before limit :limit)", nativeQuery = true)
+    int deleteExpiredChunk(@Param("before") Instant before, @Param("limit") int limit);
+
+    boolean existsByJtiAndTokenHash(String jti, String tokenHash);
+
+    // Выход со всех устройств
+    @Transactional
+    @Modifying
+    @Query("delete from SessionEntity s where s.userId = (select u.id from UserEntity u where u.email = :email)")
+    int deleteAllByUserEmail(@Param("email") String email);
+
+    // Выход с устройства: удаляем сессию, только если предъявлен ее действующий токен
+    @Transactional
+    @Modifying
+    @Query("delete from SessionEntity s where s.jti = :jti and s.tokenHash = :tokenHash")
+    int deleteByJtiAndTokenHash(@Param("jti") String jti, @Param("tokenHash") String tokenHash);
+}
@@ -1,13 +1,49 @@
 package xyz.deshik91.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import xyz.deshik91.entity.UserEntity;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Порция (id, email) по возрастанию id: сверка индекса email идет keyset-страницами
+    @Query("select u.id, u.email from UserEntity u where u.id > :afterId order by u.id")
+    List<Object[]> findEmailsAfterId(@Param("afterId") long afterId, Pageable page);
+
+    @Query("select u.email from UserEntity u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Только версии, изменившиеся после since - узлы подтягивают изменения, а не всю таблицу
+    @Query("select u.email, u.tokenVersion, u.tokenVersionChangedAt from UserEntity u " +
+            "where u.tokenVersionChangedAt > :since")
+    List<Object[]> findTokenVersionsChangedAfter(@Param("since") Instant since);
+
+    /**
+     * Отзыв всех токенов пользователя: compare-and-swap версии, чтобы два одновременных вызова
+     * не увеличили ее дважды по устаревшему значению.
+     */
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.tokenVersion = u.tokenVersion + 1, u.tokenVersionChangedAt = :now " +
+            "where u.email = :email and u.tokenVersion = :tokenVersion")
+    int incrementTokenVersion(@Param("email") String email, @Param("tokenVersion") int tokenVersion,
+                              @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.passwordHash = :passwordHash where u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package xyz.deshik91.security;
+
+import java.time.Instant;
+
+/**
+ * Только что выпущенный токен вместе с claims, которые нужны для записи сессии (без повторного разбора).
+ */
+public record IssuedToken(String token, String jti, Instant expiresAt) {
+}
@@ -0,0 +1,125 @@
+package xyz.deshik91.security;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ключи ES256 (EC P-256) для подписи токенов и их публичное представление в формате JWK.
+ */
+public final class JwtKeys {
+
+    private static final int P256_COORDINATE_BYTES = 32;
+
+    private JwtKeys() {
+    }
+
+    public static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось сгенерировать EC ключ", e);
+        }
+    }
+
+    /**
+     * Приватный ключ из PEM в PKCS#8.
+     * <pre>
+     *   openssl ecparam -name prime256v1 -genkey -noout | openssl pkcs8 -topk8 -nocrypt -out 2026-01.key.pem
+     *   openssl ec -in 2026-01.key.pem -pubout -out 2026-01.pub.pem
+     * </pre>
+     */
+    public static PrivateKey loadPrivateKey(Path pem) {
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(readPem(pem)));
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("Не удалось загрузить приватный ключ JWT из " + pem, e);
+        }
+    }
+
+    /**
+     * Публичный ключ из PEM в X.509 (SubjectPublicKeyInfo).
+     */
+    public static ECPublicKey loadPublicKey(Path pem) {
+        try {
+            return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(readPem(pem)));
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("Не удалось загрузить публичный ключ JWT из " + pem, e);
+        }
+    }
+
+    /**
+     * Записывает публичный ключ в PEM (X.509) - в том же формате, что читает {@link #loadPublicKey(Path)}.
+     */
+    public static void writePublicKey(Path pem, ECPublicKey publicKey) {
+        String body = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII))
+                .encodeToString(publicKey.getEncoded());
+        try {
+            Files.writeString(pem, "-----BEGIN PUBLIC KEY-----\n" + body + "\n-----END PUBLIC KEY-----\n");
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать публичный ключ JWT в " + pem, e);
+        }
+    }
+
+    /**
+     * Публичный ключ в формате JWK (RFC 7517) для /.well-known/jwks.json.
+     */
+    public static Map<String, Object> toPublicJwk(ECPublicKey publicKey, String kid) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+        return jwk;
+    }
+
+    /**
+     * Стабильный идентификатор ключа - JWK thumbprint (RFC 7638).
+     */
+    public static String thumbprint(ECPublicKey publicKey) {
+        // Обязательные поля в лексикографическом порядке, без пробелов
+        String canonical = "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\"" + coordinate(publicKey.getW().getAffineX())
+                + "\",\"y\":\"" + coordinate(publicKey.getW().getAffineY()) + "\"}";
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    // Координата кривой - беззнаковое big-endian число фиксированной длины
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[P256_COORDINATE_BYTES];
+        if (bytes.length > P256_COORDINATE_BYTES) {
+            bytes = Arrays.copyOfRange(bytes, bytes.length - P256_COORDINATE_BYTES, bytes.length);
+        }
+        System.arraycopy(bytes, 0, fixed, P256_COORDINATE_BYTES - bytes.length, bytes.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private static byte[] readPem(Path path) throws IOException {
+        String base64 = Files.readString(path)
+                .replaceAll("-----[A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
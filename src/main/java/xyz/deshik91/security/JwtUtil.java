@@ -1,89 +1,171 @@
 package xyz.deshik91.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
+import xyz.deshik91.model.User;
+import xyz.deshik91.monitoring.RequestTimings;
 
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    private final Key key;
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final SigningKeyRing keyRing;
+    private final JwtParser parser;
     private final long accessTokenExpiration;
     private final long refreshTokenExpiration;
-
-    public JwtUtil() {
-        // Ключ для подписи токенов (должен быть длиной не менее 32 байт для HS256)
-        this.key = Keys.hmacShaKeyFor("mySecretKeyForJWTTokenGeneration2024VeryLongAndSecureMySecretKeyForJWTTokenGeneration2024VeryLongAndSecure".getBytes());
+    private final Timer signAccess;
+    private final Timer signRefresh;
+    private final Timer parseValid;
+    private final Timer parseExpired;
+    private final Timer parseInvalid;
+
+    public JwtUtil(SigningKeyRing keyRing, MeterRegistry meterRegistry) {
+        // ES256: подписываем приватным ключом, а публичные отдаем через JWKS,
+        // чтобы другие сервисы проверяли токены локально, без вызова /api/auth/validate
+        this.keyRing = keyRing;
+        // Парсер потокобезопасен - собираем один раз, а ключ проверки выбирается по kid из заголовка
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Неизвестный ключ подписи: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
         this.accessTokenExpiration = 1000 * 60 * 15; // 15 минут
         this.refreshTokenExpiration = 1000 * 60 * 60 * 24 * 7; // 7 дней
+
+        this.signAccess = signTimer(meterRegistry, "access");
+        this.signRefresh = signTimer(meterRegistry, "refresh");
+        this.parseValid = parseTimer(meterRegistry, "valid");
+        this.parseExpired = parseTimer(meterRegistry, "expired");
+        this.parseInvalid = parseTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer signTimer(MeterRegistry meterRegistry, String type) {
+        return Timer.builder("auth.jwt.sign")
+                .description("Время подписи токена ES256")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static Timer parseTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.parse")
+                .description("Время разбора и проверки подписи токена")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     public String generateAccessToken(String email) {
+        return generateAccessToken(email, 0);
+    }
+
+    public String generateAccessToken(String email, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "access");
-        return createToken(claims, email, accessTokenExpiration);
+        claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
+        return createToken(claims, email, accessTokenExpiration, signAccess).token();
     }
 
     public String generateRefreshToken(String email) {
+        return issueRefreshToken(email, 0).token();
+    }
+
+    /**
+     * Refresh токен вместе с jti и exp - по ним заводится запись в таблице сессий.
+     */
+    public IssuedToken issueRefreshToken(String email, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "refresh");
-        return createToken(claims, email, refreshTokenExpiration);
+        claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
+        return createToken(claims, email, refreshTokenExpiration, signRefresh);
     }
 
-    private String createToken(Map<String, Object> claims, String subject, long expiration) {
+    private IssuedToken createToken(Map<String, Object> claims, String subject, long expiration, Timer timer) {
+        long start = System.nanoTime();
         // Добавляем уникальный идентификатор (jti) чтобы токены были разными
-        claims.put("jti", java.util.UUID.randomUUID().toString());
-
-        return Jwts.builder()
+        String jti = java.util.UUID.randomUUID().toString();
+        claims.put("jti", jti);
+
+        long now = System.currentTimeMillis();
+        Date expiresAt = new Date(now + expiration);
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(expiresAt)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTimings.addJwt(elapsed);
+        return new IssuedToken(token, jti, expiresAt.toInstant());
     }
 
-    public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("type", String.class));
-    }
-
-    public boolean validateToken(String token, String email) {
+    /**
+     * Проверяет подпись и срок действия токена ровно один раз и возвращает все claims.
+     *
+     * @throws JwtException если токен поврежден, подделан или истек
+     */
+    public ParsedToken parseToken(String token) {
+        long start = System.nanoTime();
+        Claims claims;
         try {
-            String extractedEmail = extractEmail(token);
-            return (extractedEmail.equals(email) && !isTokenExpired(token));
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            claims = extractAllClaims(token);
+        } catch (ExpiredJwtException e) {
+            recordParse(parseExpired, start);
+            throw e;
+        } catch (RuntimeException e) {
+            recordParse(parseInvalid, start);
+            throw e;
         }
+        recordParse(parseValid, start);
+        // Токены, выданные до появления версии, считаются версией 0
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return new ParsedToken(
+                // Токены, выданные до нормализации email, несут его в исходном регистре
+                User.normalizeEmail(claims.getSubject()),
+                claims.get("type", String.class),
+                claims.getId(),
+                tokenVersion != null ? tokenVersion : 0,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static void recordParse(Timer timer, long start) {
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTimings.addJwt(elapsed);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Все ключи проверки подписи (текущий и еще действующие старые) в формате JWKS.
+     */
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        keyRing.verificationKeys().forEach((kid, publicKey) -> keys.add(JwtKeys.toPublicJwk(publicKey, kid)));
+        return keys;
     }
 
-    // ИСПРАВЛЕНО: для JJWT 0.11.5 используется другой синтаксис
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
-}
\ No newline at end of file
+}
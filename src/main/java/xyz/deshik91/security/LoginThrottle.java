@@ -0,0 +1,91 @@
+package xyz.deshik91.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.exception.TooManyRequestsException;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты попыток входа по email и по IP клиента.
+ * Проверяется до обращения к БД и BCrypt, поэтому перебор паролей отсекается почти бесплатно.
+ * Память фиксирована и не зависит от числа атакуемых email и адресов.
+ * Лимит по IP включается явно (auth.login-throttle.ip.enabled): за балансировщиком без
+ * server.forward-headers-strategy remoteAddr у всех запросов - адрес балансировщика,
+ * и лимит по IP превратился бы в общий лимит входов на узел.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final RateLimitSketch byEmail;
+    private final RateLimitSketch byIp;
+    private final Counter throttledByEmail;
+    private final Counter throttledByIp;
+    // nanoTime может быть отрицательным - считаем время от старта, чтобы пустой слот (0) всегда был в прошлом
+    private final long origin = System.nanoTime();
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${auth.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${auth.login-throttle.slots:65536}") int slots,
+                         @Value("${auth.login-throttle.email.burst:5}") int emailBurst,
+                         @Value("${auth.login-throttle.email.per-minute:5}") int emailPerMinute,
+                         @Value("${auth.login-throttle.ip.enabled:false}") boolean ipEnabled,
+                         @Value("${auth.login-throttle.ip.burst:30}") int ipBurst,
+                         @Value("${auth.login-throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${server.forward-headers-strategy:}") String forwardHeadersStrategy) {
+        this.enabled = enabled;
+        this.byEmail = new RateLimitSketch(slots, emailBurst, emailPerMinute);
+        this.byIp = ipEnabled ? new RateLimitSketch(slots, ipBurst, ipPerMinute) : null;
+        if (enabled && ipEnabled && (forwardHeadersStrategy.isBlank() || "none".equalsIgnoreCase(forwardHeadersStrategy))) {
+            log.warn("Лимит входов по IP включен, а server.forward-headers-strategy не задан: за прокси или "
+                    + "балансировщиком все клиенты делят один адрес и один лимит {} попыток в минуту", ipPerMinute);
+        }
+        this.throttledByEmail = Counter.builder("auth.login.throttled")
+                .description("Попытки входа, отклоненные с 429")
+                .tag("by", "email")
+                .register(meterRegistry);
+        this.throttledByIp = Counter.builder("auth.login.throttled")
+                .description("Попытки входа, отклоненные с 429")
+                .tag("by", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Списывает попытку входа для IP и email.
+     *
+     * @throws TooManyRequestsException если исчерпан лимит по IP или по email
+     */
+    public void check(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime() - origin;
+
+        if (byIp != null && clientIp != null) {
+            long wait = byIp.tryAcquire(clientIp, now);
+            if (wait > 0) {
+                throttledByIp.increment();
+                throw tooManyAttempts(wait);
+            }
+        }
+
+        if (email != null) {
+            long wait = byEmail.tryAcquire(email.toLowerCase(Locale.ROOT), now);
+            if (wait > 0) {
+                throttledByEmail.increment();
+                throw tooManyAttempts(wait);
+            }
+        }
+    }
+
+    private static TooManyRequestsException tooManyAttempts(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return new TooManyRequestsException("Слишком много попыток входа, повторите позже", seconds);
+    }
+}
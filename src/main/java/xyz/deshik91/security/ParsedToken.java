@@ -0,0 +1,25 @@
+package xyz.deshik91.security;
+
+import java.time.Instant;
+
+/**
+ * Результат однократной проверки подписи и разбора JWT.
+ * Все нужные сервису claims достаются за один проход парсера.
+ */
+public record ParsedToken(
+        String subject,     // email пользователя
+        String type,        // access или refresh
+        String jti,         // уникальный идентификатор токена
+        int tokenVersion,   // версия токенов пользователя на момент выдачи
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public boolean isAccess() {
+        return "access".equals(type);
+    }
+
+    public boolean isRefresh() {
+        return "refresh".equals(type);
+    }
+}
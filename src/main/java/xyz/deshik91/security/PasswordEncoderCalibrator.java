@@ -0,0 +1,77 @@
+package xyz.deshik91.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Подбирает стоимость хеширования под бюджет задержки на конкретном железе.
+ * Замеряем дешевую конфигурацию и экстраполируем: у BCrypt время удваивается с каждым шагом cost,
+ * у Argon2 растет линейно с числом итераций.
+ */
+@Slf4j
+public final class PasswordEncoderCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+    private static final int BCRYPT_BASE_STRENGTH = 8;
+    private static final int BCRYPT_MAX_STRENGTH = 31;
+
+    // Параметры Argon2 кроме числа итераций фиксированы (значения Spring Security по умолчанию)
+    public static final int ARGON2_SALT_LENGTH = 16;
+    public static final int ARGON2_HASH_LENGTH = 32;
+    public static final int ARGON2_PARALLELISM = 1;
+    public static final int ARGON2_MEMORY_KB = 1 << 14;
+    private static final int ARGON2_MAX_ITERATIONS = 64;
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    /**
+     * Наибольший cost BCrypt, укладывающийся в бюджет, но не ниже minStrength.
+     */
+    public static int calibrateBCrypt(long targetMs, int minStrength) {
+        double baseMs = measureMs(new BCryptPasswordEncoder(BCRYPT_BASE_STRENGTH));
+        int strength = BCRYPT_BASE_STRENGTH;
+        while (strength < BCRYPT_MAX_STRENGTH && baseMs * Math.pow(2, strength + 1 - BCRYPT_BASE_STRENGTH) <= targetMs) {
+            strength++;
+        }
+        int result = Math.max(strength, minStrength);
+        log.info("BCrypt: cost {} = {} мс, бюджет {} мс -> выбран cost {} (~{} мс)",
+                BCRYPT_BASE_STRENGTH, String.format("%.1f", baseMs), targetMs, result,
+                Math.round(baseMs * Math.pow(2, result - BCRYPT_BASE_STRENGTH)));
+        return result;
+    }
+
+    /**
+     * Число итераций Argon2, укладывающееся в бюджет, но не ниже minIterations.
+     */
+    public static int calibrateArgon2(long targetMs, int minIterations) {
+        double perIterationMs = measureMs(argon2(1));
+        int iterations = (int) Math.min(ARGON2_MAX_ITERATIONS, Math.floor(targetMs / perIterationMs));
+        int result = Math.max(iterations, minIterations);
+        log.info("Argon2: 1 итерация = {} мс, бюджет {} мс -> выбрано {} итераций",
+                String.format("%.1f", perIterationMs), targetMs, result);
+        return result;
+    }
+
+    public static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH,
+                ARGON2_PARALLELISM, ARGON2_MEMORY_KB, iterations);
+    }
+
+    // Медиана нескольких замеров после прогрева
+    private static double measureMs(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,83 @@
+package xyz.deshik91.security;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket для неограниченного множества ключей в фиксированной памяти.
+ * Каждый слот хранит одно число - теоретическое время следующего запроса (GCRA), которое обновляется CAS,
+ * поэтому блокировок нет, а разные ключи попадают в разные слоты и не мешают друг другу.
+ * Ключ хешируется в две строки слотов (как count-min sketch): коллизия может только
+ * раньше ограничить ключ, и отказ дается, лишь если обе строки исчерпаны. Каждая строка пропускает
+ * не больше burst попыток за раз, поэтому даже параллельный всплеск одного ключа проходит не больше 2 * burst.
+ */
+final class RateLimitSketch {
+
+    private static final int ROWS = 2;
+
+    private final AtomicLongArray[] rows = new AtomicLongArray[ROWS];
+    private final long[] seeds = new long[ROWS];
+    private final int mask;
+    private final long intervalNanos;  // интервал пополнения одного токена
+    private final long burstNanos;     // емкость ведра, выраженная во времени
+
+    /**
+     * @param slots число слотов в строке, округляется вверх до степени двойки
+     */
+    RateLimitSketch(int slots, int burst, int perMinute) {
+        int size = Integer.highestOneBit(Math.max(slots - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.intervalNanos = 60_000_000_000L / Math.max(perMinute, 1);
+        this.burstNanos = intervalNanos * Math.max(burst, 1);
+        // Случайная соль: подобрать email, попадающий в слоты чужого, без нее было бы легко
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new AtomicLongArray(size);
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * @return 0, если запрос разрешен (токен списан), иначе сколько наносекунд ждать
+     */
+    long tryAcquire(String key, long now) {
+        // Обе строки списываются независимо, каждая - только если сама еще разрешает запрос.
+        // Отказ - когда исчерпаны обе, и тогда не изменилась ни одна
+        long firstWait = tryTake(rows[0], slot(key, 0), now);
+        long secondWait = tryTake(rows[1], slot(key, 1), now);
+        return Math.min(firstWait, secondWait);
+    }
+
+    /**
+     * Проверка и списание одним CAS-циклом: параллельные попытки одного ключа не могут все пройти проверку
+     * до того, как кто-то из них спишет токен. Слот меняется только при разрешенном запросе,
+     * поэтому никогда не уходит дальше now + burst.
+     *
+     * @return 0, если токен списан, иначе сколько наносекунд ждать
+     */
+    private long tryTake(AtomicLongArray row, int slot, long now) {
+        while (true) {
+            long tat = row.get(slot);
+            long next = Math.max(tat, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (row.compareAndSet(slot, tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private int slot(String key, int row) {
+        long hash = seeds[row];
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
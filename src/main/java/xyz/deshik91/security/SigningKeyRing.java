@@ -0,0 +1,221 @@
+package xyz.deshik91.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Набор ключей подписи токенов с ротацией без рестарта.
+ *
+ * <p>Ключи лежат в каталоге auth.jwt.keys-dir парами {@code <имя>.key.pem} + {@code <имя>.pub.pem};
+ * ключ только с {@code .pub.pem} используется лишь для проверки. Текущий ключ подписи - приватный ключ
+ * с лексикографически наибольшим именем (удобно называть по дате: 2026-01, 2026-04, ...)
+ * среди опубликованных не позже чем auth.jwt.key-activation-delay-ms назад (по времени изменения
+ * {@code .pub.pem}). До этого новый ключ только принимается для проверки: другие узлы успевают
+ * перечитать каталог, а кеши JWKS у потребителей - обновиться, поэтому первые токены нового ключа
+ * не получают 401. Задержка должна быть не меньше keys-reload-interval-ms плюс max-age ответа JWKS.
+ * Если подходящего ключа нет (первый запуск), подписывает наибольший по имени.
+ * Каталог перечитывается по расписанию; ключ, удаленный с диска, еще retired-key-retention-ms
+ * принимается для проверки, чтобы выданные им токены дожили до exp и ротация не вызывала волну логинов.
+ * Его публичный ключ сохраняется в {@code <keys-dir>/retired}, поэтому переживает рестарт узла.
+ *
+ * <p>Без каталога узел подписывает временным ключом, который не знают другие узлы и который теряется
+ * при рестарте, - это допускается только явно (auth.jwt.allow-ephemeral-key, профили dev и memory).
+ *
+ * <p>Поиск ключа по kid - одно чтение из неизменяемой HashMap, подменяемой целиком при перезагрузке.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing {
+
+    private static final String PRIVATE_SUFFIX = ".key.pem";
+    private static final String PUBLIC_SUFFIX = ".pub.pem";
+    private static final String RETIRED_DIR = "retired";
+
+    public record SigningKey(String kid, PrivateKey privateKey, ECPublicKey publicKey) {
+    }
+
+    private record Snapshot(SigningKey current, Map<String, ECPublicKey> verificationKeys) {
+    }
+
+    private record RetiredKey(ECPublicKey publicKey, Instant retainUntil) {
+    }
+
+    private final Path keysDir;
+    private final long retiredKeyRetentionMs;
+    private final long keyActivationDelayMs;
+    private final Map<String, RetiredKey> retiredKeys = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+
+    public SigningKeyRing(@Value("${auth.jwt.keys-dir:}") String keysDir,
+                          @Value("${auth.jwt.allow-ephemeral-key:false}") boolean allowEphemeralKey,
+                          @Value("${auth.jwt.retired-key-retention-ms:604800000}") long retiredKeyRetentionMs,
+                          @Value("${auth.jwt.key-activation-delay-ms:360000}") long keyActivationDelayMs) {
+        this.retiredKeyRetentionMs = retiredKeyRetentionMs;
+        this.keyActivationDelayMs = keyActivationDelayMs;
+        if (keysDir.isBlank()) {
+            if (!allowEphemeralKey) {
+                throw new IllegalStateException("auth.jwt.keys-dir не задан: со временным ключом токены не проходят "
+                        + "проверку на других узлах и после рестарта. Для разработки - auth.jwt.allow-ephemeral-key=true");
+            }
+            // Годится только для разработки: после рестарта все выданные токены станут невалидными
+            log.warn("auth.jwt.keys-dir не задан - генерируем временный ключ ES256");
+            this.keysDir = null;
+            KeyPair keyPair = JwtKeys.generate();
+            ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+            SigningKey key = new SigningKey(JwtKeys.thumbprint(publicKey), keyPair.getPrivate(), publicKey);
+            this.snapshot = new Snapshot(key, Map.of(key.kid(), publicKey));
+        } else {
+            this.keysDir = Path.of(keysDir);
+            this.snapshot = load();
+            log.info("Загружены ключи JWT: текущий kid={}, всего для проверки {}",
+                    snapshot.current().kid(), snapshot.verificationKeys().size());
+        }
+    }
+
+    public SigningKey current() {
+        return snapshot.current();
+    }
+
+    /**
+     * Ключ проверки по kid из заголовка токена или null, если такого ключа нет.
+     */
+    public ECPublicKey verificationKey(String kid) {
+        return kid == null ? null : snapshot.verificationKeys().get(kid);
+    }
+
+    public Map<String, ECPublicKey> verificationKeys() {
+        return snapshot.verificationKeys();
+    }
+
+    @Scheduled(initialDelayString = "${auth.jwt.keys-reload-interval-ms:60000}",
+            fixedDelayString = "${auth.jwt.keys-reload-interval-ms:60000}")
+    public void reload() {
+        if (keysDir == null) {
+            return;
+        }
+        try {
+            Snapshot fresh = load();
+            if (!fresh.current().kid().equals(snapshot.current().kid())) {
+                log.info("Ротация ключа JWT: {} -> {}", snapshot.current().kid(), fresh.current().kid());
+            }
+            snapshot = fresh;
+        } catch (RuntimeException e) {
+            // Битый файл не должен оставить сервис без ключей - продолжаем со старым набором
+            log.error("Не удалось перечитать ключи JWT из {}, используем прежние", keysDir, e);
+        }
+    }
+
+    private Snapshot load() {
+        Map<String, SigningKey> onDisk = new TreeMap<>();
+        Instant activeBefore = Instant.now().minusMillis(keyActivationDelayMs);
+        SigningKey current = null;
+        SigningKey newest = null;
+        try (Stream<Path> files = Files.list(keysDir)) {
+            for (Path publicFile : files.filter(f -> f.getFileName().toString().endsWith(PUBLIC_SUFFIX)).toList()) {
+                String name = publicFile.getFileName().toString().replace(PUBLIC_SUFFIX, "");
+                ECPublicKey publicKey = JwtKeys.loadPublicKey(publicFile);
+                Path privateFile = keysDir.resolve(name + PRIVATE_SUFFIX);
+                PrivateKey privateKey = Files.exists(privateFile) ? JwtKeys.loadPrivateKey(privateFile) : null;
+                onDisk.put(name, new SigningKey(JwtKeys.thumbprint(publicKey), privateKey, publicKey));
+            }
+            for (Map.Entry<String, SigningKey> entry : onDisk.entrySet()) {
+                if (entry.getValue().privateKey() == null) {
+                    continue;
+                }
+                // TreeMap - последний подходящий и есть наибольшее имя
+                newest = entry.getValue();
+                Instant published = Files.getLastModifiedTime(keysDir.resolve(entry.getKey() + PUBLIC_SUFFIX)).toInstant();
+                if (!published.isAfter(activeBefore)) {
+                    current = entry.getValue();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать каталог ключей JWT " + keysDir, e);
+        }
+
+        if (newest == null) {
+            throw new IllegalStateException("В " + keysDir + " нет ни одного приватного ключа *" + PRIVATE_SUFFIX);
+        }
+        if (current == null) {
+            // Ни один ключ еще не опубликован достаточно давно - выданных токенов, которые могли бы
+            // не пройти проверку, скорее всего нет
+            current = newest;
+        }
+
+        Map<String, ECPublicKey> verificationKeys = new HashMap<>();
+        for (SigningKey key : onDisk.values()) {
+            verificationKeys.put(key.kid(), key.publicKey());
+        }
+        retainRemovedKeys(verificationKeys);
+        return new Snapshot(current, Map.copyOf(verificationKeys));
+    }
+
+    // Ключи, пропавшие с диска, еще какое-то время принимаются для проверки. Срок считается от записи
+    // файла в retired/, поэтому после рестарта (и на других узлах с тем же каталогом) он тот же
+    private void retainRemovedKeys(Map<String, ECPublicKey> verificationKeys) {
+        Instant now = Instant.now();
+        Path retiredDir = keysDir.resolve(RETIRED_DIR);
+        if (snapshot != null) {
+            snapshot.verificationKeys().forEach((kid, publicKey) -> {
+                if (!verificationKeys.containsKey(kid) && !retiredKeys.containsKey(kid)) {
+                    retiredKeys.put(kid, new RetiredKey(publicKey, now.plusMillis(retiredKeyRetentionMs)));
+                    persistRetired(retiredDir, kid, publicKey);
+                }
+            });
+        }
+        loadRetired(retiredDir, now);
+        retiredKeys.entrySet().removeIf(entry ->
+                verificationKeys.containsKey(entry.getKey()) || !entry.getValue().retainUntil().isAfter(now));
+        retiredKeys.forEach((kid, retired) -> verificationKeys.put(kid, retired.publicKey()));
+    }
+
+    private void persistRetired(Path retiredDir, String kid, ECPublicKey publicKey) {
+        try {
+            Files.createDirectories(retiredDir);
+            JwtKeys.writePublicKey(retiredDir.resolve(kid + PUBLIC_SUFFIX), publicKey);
+        } catch (IOException | RuntimeException e) {
+            // Каталог только для чтения: ключ удерживается в памяти, но не переживет рестарт
+            log.warn("Не удалось сохранить выведенный ключ JWT {} в {}", kid, retiredDir, e);
+        }
+    }
+
+    private void loadRetired(Path retiredDir, Instant now) {
+        if (!Files.isDirectory(retiredDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(retiredDir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(PUBLIC_SUFFIX)).toList()) {
+                Instant retainUntil = Files.getLastModifiedTime(file).toInstant().plusMillis(retiredKeyRetentionMs);
+                if (!retainUntil.isAfter(now)) {
+                    deleteExpired(file);
+                    continue;
+                }
+                ECPublicKey publicKey = JwtKeys.loadPublicKey(file);
+                retiredKeys.putIfAbsent(JwtKeys.thumbprint(publicKey), new RetiredKey(publicKey, retainUntil));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать каталог выведенных ключей JWT " + retiredDir, e);
+        }
+    }
+
+    private static void deleteExpired(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Не удалось удалить истекший ключ JWT {}", file, e);
+        }
+    }
+}
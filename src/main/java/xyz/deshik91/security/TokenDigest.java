@@ -0,0 +1,31 @@
+package xyz.deshik91.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 от токена: в кешах и в БД храним отпечаток, а не сам bearer токен.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+    }
+
+    public static String sha256Hex(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    // Сравнение за постоянное время, чтобы не давать подсказок через тайминг
+    public static boolean matches(String token, String expectedHex) {
+        return expectedHex != null && MessageDigest.isEqual(
+                sha256Hex(token).getBytes(StandardCharsets.US_ASCII),
+                expectedHex.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,78 @@
+package xyz.deshik91.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Кеш уже проверенных токенов для /api/auth/validate.
+ * Gateway присылает один и тот же access токен на каждый запрос, поэтому
+ * подпись проверяется один раз, а дальше claims берутся из кеша до момента exp.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, ParsedToken> cache;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              MeterRegistry meterRegistry,
+                              @Value("${auth.token-cache.max-size:100000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        // W-TinyLFU вытеснение по размеру + запись живет ровно до exp токена
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        // Попадания, промахи и вытеснения уходят в cache.gets/cache.evictions{cache="auth.token.cache"}
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.cache");
+    }
+
+    /**
+     * Возвращает claims токена, проверяя подпись только при промахе кеша.
+     * Ключ кеша - SHA-256 токена, чтобы не держать bearer-строки в памяти.
+     *
+     * @throws io.jsonwebtoken.JwtException если токен невалиден (такие токены не кешируются)
+     */
+    public ParsedToken verify(String token) {
+        return cache.get(TokenDigest.sha256Hex(token), key -> jwtUtil.parseToken(token));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, ParsedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, ParsedToken value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return 0;
+            }
+            long nanos = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+            return Math.max(nanos, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ParsedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ParsedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package xyz.deshik91.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.exception.AuthFailureException;
+import xyz.deshik91.exception.ServiceOverloadedException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Таймер auth.operation для операций AuthService с тегами operation и outcome
+ * (success, bad_credentials, expired, revoked, invalid, conflict, rejected, overloaded, error).
+ * Гистограммы для p99 включаются в application.properties (management.metrics.distribution.*).
+ */
+@Component
+public class AuthMetrics {
+
+    private static final String SUCCESS = "success";
+
+    private final MeterRegistry meterRegistry;
+    // Таймеры кешируются: после прогрева запись не ищет метр в реестре и ничего не выделяет
+    private final ConcurrentMap<String, ConcurrentMap<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T record(String operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (AuthFailureException e) {
+            outcome = e.getReason().tag();
+            throw e;
+        } catch (ServiceOverloadedException e) {
+            outcome = "overloaded";
+            throw e;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void record(String operation, Runnable action) {
+        record(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String operation, String outcome) {
+        ConcurrentMap<String, Timer> byOutcome = timers.get(operation);
+        if (byOutcome == null) {
+            byOutcome = timers.computeIfAbsent(operation, key -> new ConcurrentHashMap<>());
+        }
+        Timer timer = byOutcome.get(outcome);
+        if (timer == null) {
+            timer = byOutcome.computeIfAbsent(outcome, key -> Timer.builder("auth.operation")
+                    .description("Время операций аутентификации по исходу")
+                    .tag("operation", operation)
+                    .tag("outcome", key)
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+}
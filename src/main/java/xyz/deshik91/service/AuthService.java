@@ -1,174 +1,384 @@
 package xyz.deshik91.service;
 
+import io.jsonwebtoken.ExpiredJwtException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.LogoutRequest;
 import xyz.deshik91.dto.request.RefreshTokenRequest;
 import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.request.RevokeTokenRequest;
 import xyz.deshik91.dto.response.AuthResponse;
 import xyz.deshik91.dto.response.ValidateResponse;
-import xyz.deshik91.entity.InvitationEntity;
-import xyz.deshik91.entity.UserEntity;
-import xyz.deshik91.repository.InvitationRepository;
-import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.exception.AuthFailureException;
+import xyz.deshik91.exception.AuthFailureException.Reason;
+import xyz.deshik91.exception.ServiceOverloadedException;
+import xyz.deshik91.model.Invitation;
+import xyz.deshik91.model.User;
+import xyz.deshik91.monitoring.RequestTimings;
+import xyz.deshik91.security.IssuedToken;
 import xyz.deshik91.security.JwtUtil;
+import xyz.deshik91.security.ParsedToken;
+import xyz.deshik91.security.TokenDigest;
+import xyz.deshik91.security.VerifiedTokenCache;
+import xyz.deshik91.store.InvitationStore;
+import xyz.deshik91.store.SessionStore;
+import xyz.deshik91.store.UserStore;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
-    private final UserRepository userRepository;
-    private final InvitationRepository invitationRepository;
-    private final PasswordEncoder passwordEncoder;
+    // JPA или память - в зависимости от профиля (см. пакет store)
+    private final UserStore userStore;
+    private final InvitationStore invitationStore;
+    private final SessionStore sessionStore;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
-
-    @Transactional
+    private final VerifiedTokenCache tokenCache;
+    private final UserEmailIndex userEmailIndex;
+    private final TokenRevocationList revocationList;
+    private final TokenVersionCache tokenVersions;
+    private final TransactionOperations transactionOperations;
+    private final AuthMetrics authMetrics;
+
+    // Ниже этого размера накладные расходы fork/join дороже самой проверки подписей
+    private static final int PARALLEL_BATCH_THRESHOLD = 16;
+
+    // Без @Transactional: BCrypt выполняется, пока соединение из пула не занято.
+    // В транзакции только короткая запись в конце: UPDATE инвайта, INSERT пользователя и INSERT сессии
     public AuthResponse register(RegisterRequest request) {
-        // 1. Проверяем, не занят ли email
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email уже зарегистрирован");
+        return authMetrics.record("register", () -> doRegister(request));
+    }
+
+    private AuthResponse doRegister(RegisterRequest request) {
+        // 1. Дешевая проверка по индексу в памяти, чтобы не хешировать пароль для уже известного email.
+        // Окончательно уникальность email гарантирует unique-ограничение в БД
+        if (userEmailIndex.containsLocally(request.getEmail())) {
+            throw new AuthFailureException(Reason.CONFLICT, "Email уже зарегистрирован");
         }
 
-        // 2. Проверяем инвайт-код
-        InvitationEntity invitation = invitationRepository.findByCode(request.getInvitationCode())
-                .orElseThrow(() -> new RuntimeException("Неверный код приглашения"));
+        // 2. Хешируем пароль и генерируем токены без соединения с БД
+        String passwordHash = passwordHasher.encode(request.getPassword());
+        // Новый пользователь начинает с версии токенов 0
+        String accessToken = jwtUtil.generateAccessToken(request.getEmail(), 0);
+        IssuedToken refreshToken = jwtUtil.issueRefreshToken(request.getEmail(), 0);
 
-        if (invitation.isUsed()) {
-            throw new RuntimeException("Код приглашения уже использован");
+        // 3. Короткая транзакция: занимаем инвайт, создаем пользователя и его первую сессию
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                if (!invitationStore.claim(request.getInvitationCode(), request.getEmail(), Instant.now())) {
+                    throw invitationRejected(request);
+                }
+
+                User user = userStore.create(request.getEmail(), passwordHash, Instant.now());
+                createSession(user.getId(), refreshToken);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Email занят (например, одновременная регистрация) - транзакция откатилась вместе с инвайтом
+            throw new AuthFailureException(Reason.CONFLICT, "Email уже зарегистрирован");
         }
 
-        if (invitation.getExpiresAt().isBefore(Instant.now())) {
-            throw new RuntimeException("Срок действия кода приглашения истек");
+        return new AuthResponse(accessToken, refreshToken.token(), 15 * 60L);
+    }
+
+    /**
+     * Объясняет, почему инвайт не удалось занять. Вызывается только при отказе,
+     * поэтому на успешном пути лишних запросов нет.
+     */
+    private AuthFailureException invitationRejected(RegisterRequest request) {
+        if (userStore.existsByEmail(request.getEmail())) {
+            return new AuthFailureException(Reason.CONFLICT, "Email уже зарегистрирован");
         }
 
-        // Если инвайт на конкретный email, проверяем соответствие
-        if (invitation.getEmail() != null && !invitation.getEmail().equals(request.getEmail())) {
-            throw new RuntimeException("Код приглашения выдан на другой email");
+        Invitation invitation = invitationStore.findByCode(request.getInvitationCode()).orElse(null);
+        if (invitation == null) {
+            return new AuthFailureException(Reason.REJECTED, "Неверный код приглашения");
+        }
+        if (invitation.isUsed()) {
+            return new AuthFailureException(Reason.REJECTED, "Код приглашения уже использован");
         }
+        if (!invitation.getExpiresAt().isAfter(Instant.now())) {
+            return new AuthFailureException(Reason.REJECTED, "Срок действия кода приглашения истек");
+        }
+        return new AuthFailureException(Reason.REJECTED, "Код приглашения выдан на другой email");
+    }
 
-        // 3. Создаем пользователя
-        UserEntity user = new UserEntity();
-        user.setEmail(request.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
-        user.setCreatedAt(Instant.now());
+    // Без @Transactional: соединение берется только на чтение пользователя и на запись сессии,
+    // BCrypt между ними выполняется без соединения
+    public AuthResponse login(LoginRequest request) {
+        return authMetrics.record("login", () -> doLogin(request));
+    }
 
-        UserEntity savedUser = userRepository.save(user);
+    private AuthResponse doLogin(LoginRequest request) {
+        // 1. Ищем пользователя по email
+        User user = userStore.findByEmail(request.getEmail())
+                .orElseThrow(() -> new AuthFailureException(Reason.BAD_CREDENTIALS, "Неверный email или пароль"));
 
-        // 4. Помечаем инвайт как использованный
-        invitation.setUsed(true);
-        invitationRepository.save(invitation);
+        // 2. Проверяем пароль
+        if (!passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
+            throw new AuthFailureException(Reason.BAD_CREDENTIALS, "Неверный email или пароль");
+        }
 
-        // 5. Генерируем токены
-        String accessToken = jwtUtil.generateAccessToken(savedUser.getEmail());
-        String refreshToken = jwtUtil.generateRefreshToken(savedUser.getEmail());
+        // 3. Генерируем новые токены
+        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getTokenVersion());
+        IssuedToken refreshToken = jwtUtil.issueRefreshToken(user.getEmail(), user.getTokenVersion());
+
+        // 4. Если хеш слабее текущего алгоритма/стоимости - прозрачно перехешируем пароль, до создания сессии.
+        // Это необязательная работа: при переполненном пуле хеширования пропускаем ее, а не отвечаем 503
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            try {
+                userStore.updatePasswordHash(user.getId(), passwordHasher.encode(request.getPassword()));
+            } catch (ServiceOverloadedException e) {
+                // Старый хеш остается рабочим, перехешируем при следующем входе
+            }
+        }
 
-        // 6. Сохраняем refresh токен
-        savedUser.setRefreshToken(refreshToken);
-        userRepository.save(savedUser);
+        // 5. Заводим сессию для этого устройства; сессии других устройств и строку в users не трогаем
+        createSession(user.getId(), refreshToken);
 
-        return new AuthResponse(accessToken, refreshToken, 15 * 60L);
+        return new AuthResponse(accessToken, refreshToken.token(), 15 * 60L);
     }
 
-    @Transactional
-    public AuthResponse login(LoginRequest request) {
-        // 1. Ищем пользователя по email
-        UserEntity user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Неверный email или пароль"));
+    // Без @Transactional: вся ротация - один UPDATE, транзакция нужна только ему
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        return authMetrics.record("refresh", () -> doRefresh(request));
+    }
 
-        // 2. Проверяем пароль
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            throw new RuntimeException("Неверный email или пароль");
+    private AuthResponse doRefresh(RefreshTokenRequest request) {
+        // 1. Проверяем подпись и срок действия, достаем claims за один разбор
+        ParsedToken token = parse(request.getRefreshToken(), "Невалидный refresh токен");
+        String email = token.subject();
+
+        // 2. Проверяем тип токена
+        if (!token.isRefresh()) {
+            throw new AuthFailureException(Reason.INVALID, "Неверный тип токена. Ожидался refresh токен");
         }
 
-        // 3. Генерируем новые токены
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
+        // 3. Токен выдан до выхода со всех устройств
+        if (token.tokenVersion() < tokenVersions.current(email)) {
+            throw new AuthFailureException(Reason.REVOKED, "Refresh токен недействителен или был отозван");
+        }
+        // Новая пара наследует версию предъявленного токена: кеш хранит версии только за срок жизни токенов,
+        // а давно выходивший пользователь в нем выглядит как версия 0
+        int tokenVersion = token.tokenVersion();
+
+        // 4. Генерируем новую пару
+        String newAccessToken = jwtUtil.generateAccessToken(email, tokenVersion);
+        IssuedToken newRefreshToken = jwtUtil.issueRefreshToken(email, tokenVersion);
+
+        // 5. Compare-and-swap: сессия переходит на новый токен, только если в ней все еще предъявленный.
+        // 0 строк - токен уже использован, отозван или сессия удалена вместе с пользователем
+        boolean rotated = sessionStore.rotate(
+                token.jti(), TokenDigest.sha256Hex(request.getRefreshToken()),
+                newRefreshToken.jti(), TokenDigest.sha256Hex(newRefreshToken.token()), newRefreshToken.expiresAt());
+        if (!rotated) {
+            throw new AuthFailureException(Reason.REVOKED, "Refresh токен недействителен или был отозван");
+        }
 
-        // 4. Обновляем refresh токен
-        user.setRefreshToken(refreshToken);
-        userRepository.save(user);
+        return new AuthResponse(newAccessToken, newRefreshToken.token(), 15 * 60L);
+    }
 
-        return new AuthResponse(accessToken, refreshToken, 15 * 60L);
+    /**
+     * Выход с устройства: сессия удаляется, refresh и (если передан) access токен отзываются до exp.
+     * Повторный выход с тем же токеном ничего не меняет.
+     */
+    public void logout(LogoutRequest request) {
+        authMetrics.record("logout", () -> doLogout(request));
     }
 
-    @Transactional
-    public AuthResponse refresh(RefreshTokenRequest request) {
-        // 1. Извлекаем email из refresh токена
-        String email;
-        try {
-            email = jwtUtil.extractEmail(request.getRefreshToken());
-        } catch (Exception e) {
-            throw new RuntimeException("Невалидный refresh токен");
+    private void doLogout(LogoutRequest request) {
+        ParsedToken refreshToken = parse(request.getRefreshToken(), "Невалидный refresh токен");
+        if (!refreshToken.isRefresh()) {
+            throw new AuthFailureException(Reason.INVALID, "Неверный тип токена. Ожидался refresh токен");
         }
 
-        // 2. Проверяем тип токена
-        String tokenType;
-        try {
-            tokenType = jwtUtil.extractTokenType(request.getRefreshToken());
-        } catch (Exception e) {
-            throw new RuntimeException("Невалидный refresh токен");
+        ParsedToken accessToken = null;
+        if (request.getAccessToken() != null && !request.getAccessToken().isBlank()) {
+            accessToken = parse(stripBearer(request.getAccessToken()), "Невалидный access токен");
+            // Чужой access токен этим запросом отозвать нельзя
+            if (!accessToken.isAccess() || !accessToken.subject().equals(refreshToken.subject())) {
+                throw new AuthFailureException(Reason.INVALID, "Access токен не принадлежит этой сессии");
+            }
         }
 
-        if (!"refresh".equals(tokenType)) {
-            throw new RuntimeException("Неверный тип токена. Ожидался refresh токен");
+        sessionStore.delete(refreshToken.jti(), TokenDigest.sha256Hex(request.getRefreshToken()));
+        revocationList.revoke(refreshToken.jti(), refreshToken.expiresAt());
+        if (accessToken != null) {
+            revocationList.revoke(accessToken.jti(), accessToken.expiresAt());
         }
+    }
 
-        // 3. Ищем пользователя
-        UserEntity user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+    /**
+     * Выход со всех устройств: версия токенов пользователя увеличивается на 1, и все выданные ранее
+     * access и refresh токены перестают проходить проверку без перебора самих токенов.
+     * Сессии пользователя удаляются одним запросом, чтобы не ждать их истечения.
+     */
+    public void logoutAll(RefreshTokenRequest request) {
+        authMetrics.record("logout_all", () -> doLogoutAll(request));
+    }
 
-        // 4. Проверяем, что refresh токен совпадает
-        if (user.getRefreshToken() == null || !user.getRefreshToken().equals(request.getRefreshToken())) {
-            throw new RuntimeException("Refresh токен недействителен или был отозван");
+    private void doLogoutAll(RefreshTokenRequest request) {
+        ParsedToken token = parse(request.getRefreshToken(), "Невалидный refresh токен");
+        if (!token.isRefresh()) {
+            throw new AuthFailureException(Reason.INVALID, "Неверный тип токена. Ожидался refresh токен");
         }
 
-        // 5. Проверяем, не истек ли токен
-        if (!jwtUtil.validateToken(request.getRefreshToken(), email)) {
-            throw new RuntimeException("Refresh токен истек");
+        // Только действующая сессия может завершить все остальные
+        String email = token.subject();
+        if (token.tokenVersion() < tokenVersions.current(email)
+                || !sessionStore.exists(token.jti(), TokenDigest.sha256Hex(request.getRefreshToken()))) {
+            throw new AuthFailureException(Reason.REVOKED, "Refresh токен недействителен или был отозван");
         }
 
-        // 6. Генерируем новую пару
-        String newAccessToken = jwtUtil.generateAccessToken(email);
-        String newRefreshToken = jwtUtil.generateRefreshToken(email);
+        // Compare-and-swap по версии из токена: 0 строк - версию уже увеличил параллельный вызов
+        if (!userStore.incrementTokenVersion(email, token.tokenVersion())) {
+            throw new AuthFailureException(Reason.REVOKED, "Refresh токен недействителен или был отозван");
+        }
+        tokenVersions.advance(email, token.tokenVersion() + 1);
+        sessionStore.deleteAllByUserEmail(email);
+    }
 
-        // 7. Обновляем токен у пользователя
-        user.setRefreshToken(newRefreshToken);
-        userRepository.save(user);
+    /**
+     * Отзыв отдельного токена (например, утекшего): кто предъявил токен, тот может его отозвать.
+     * Для refresh токена удаляется и сессия.
+     */
+    public void revoke(RevokeTokenRequest request) {
+        authMetrics.record("revoke", () -> doRevoke(request));
+    }
+
+    private void doRevoke(RevokeTokenRequest request) {
+        String raw = stripBearer(request.getToken());
+        ParsedToken token = parse(raw, "Невалидный токен");
+
+        if (token.isRefresh()) {
+            sessionStore.delete(token.jti(), TokenDigest.sha256Hex(raw));
+        }
+        revocationList.revoke(token.jti(), token.expiresAt());
+    }
+
+    /**
+     * Проверяет подпись и срок действия; истекший токен отличается от испорченного только причиной в метриках.
+     */
+    private ParsedToken parse(String token, String message) {
+        try {
+            return jwtUtil.parseToken(token);
+        } catch (ExpiredJwtException e) {
+            throw new AuthFailureException(Reason.EXPIRED, message);
+        } catch (Exception e) {
+            throw new AuthFailureException(Reason.INVALID, message);
+        }
+    }
 
-        return new AuthResponse(newAccessToken, newRefreshToken, 15 * 60L);
+    private static String stripBearer(String token) {
+        return token.startsWith("Bearer ") ? token.substring(7) : token;
     }
 
-    @Transactional(readOnly = true)
+    private void createSession(long userId, IssuedToken refreshToken) {
+        sessionStore.create(refreshToken.jti(), userId, TokenDigest.sha256Hex(refreshToken.token()),
+                Instant.now(), refreshToken.expiresAt());
+    }
+
+    // Без @Transactional: на горячем пути не нужно даже брать соединение из пула
     public ValidateResponse validateToken(String authorizationHeader) {
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+        try {
+            ParsedToken parsed = authMetrics.record("validate", () -> verifyAccess(authorizationHeader));
+            return new ValidateResponse(parsed.subject(), true, parsed.type());
+        } catch (Exception e) {
             return new ValidateResponse(null, false, null);
         }
+    }
+
+    private ParsedToken verifyAccess(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            throw new AuthFailureException(Reason.INVALID, "Нет Bearer токена");
+        }
 
         String token = authorizationHeader.substring(7);
 
+        // Подпись проверяется только при первом обращении, дальше claims берутся из кеша до exp
+        ParsedToken parsed;
         try {
-            String email = jwtUtil.extractEmail(token);
-            String tokenType = jwtUtil.extractTokenType(token);
-            boolean isValid = jwtUtil.validateToken(token, email);
+            parsed = tokenCache.verify(token);
+        } catch (ExpiredJwtException e) {
+            throw new AuthFailureException(Reason.EXPIRED, "Токен истек");
+        } catch (Exception e) {
+            throw new AuthFailureException(Reason.INVALID, "Невалидный токен");
+        }
 
-            if (!isValid) {
-                return new ValidateResponse(null, false, null);
-            }
+        // Отозванный до exp токен (logout/revoke); для обычного токена - только Bloom-фильтр в памяти
+        if (revocationList.isRevoked(parsed.jti(), parsed.expiresAt())) {
+            throw new AuthFailureException(Reason.REVOKED, "Токен отозван");
+        }
 
-            // Проверяем, что пользователь существует
-            boolean userExists = userRepository.existsByEmail(email);
-            if (!userExists) {
-                return new ValidateResponse(null, false, null);
-            }
+        // Токен выдан до выхода пользователя со всех устройств
+        if (parsed.tokenVersion() < tokenVersions.current(parsed.subject())) {
+            throw new AuthFailureException(Reason.REVOKED, "Токен отозван");
+        }
+
+        // Проверяем, что пользователь существует (индекс в памяти, БД только при промахе);
+        // токены удаленного пользователя считаем отозванными
+        if (!userEmailIndex.contains(parsed.subject())) {
+            throw new AuthFailureException(Reason.REVOKED, "Пользователь не найден");
+        }
+
+        return parsed;
+    }
+
+    public List<ValidateResponse> validateTokens(List<String> tokens) {
+        return authMetrics.record("validate_batch", () -> doValidateTokens(tokens));
+    }
 
-            return new ValidateResponse(email, true, tokenType);
+    private List<ValidateResponse> doValidateTokens(List<String> tokens) {
+        // 1. Проверяем подписи параллельно на всех ядрах (для маленьких пакетов - в текущем потоке)
+        Stream<String> stream = tokens.size() >= PARALLEL_BATCH_THRESHOLD ? tokens.parallelStream() : tokens.stream();
+        List<ParsedToken> parsed = stream
+                .map(RequestTimings.trackAllocations(this::verifyQuietly))
+                .toList();
+
+        // 2. Существование всех пользователей пакета - одним запросом
+        Set<String> emails = new HashSet<>();
+        for (ParsedToken token : parsed) {
+            if (token != null) {
+                emails.add(token.subject());
+            }
+        }
+        Set<String> existing = emails.isEmpty() ? Set.of() : userEmailIndex.findExisting(emails);
+
+        // 3. Ответ в том же порядке, что и запрос
+        List<ValidateResponse> responses = new ArrayList<>(parsed.size());
+        for (ParsedToken token : parsed) {
+            if (token == null || !existing.contains(token.subject())) {
+                responses.add(new ValidateResponse(null, false, null));
+            } else {
+                responses.add(new ValidateResponse(token.subject(), true, token.type()));
+            }
+        }
+        return responses;
+    }
 
+    private ParsedToken verifyQuietly(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            ParsedToken parsed = tokenCache.verify(stripBearer(token));
+            if (revocationList.isRevoked(parsed.jti(), parsed.expiresAt())
+                    || parsed.tokenVersion() < tokenVersions.current(parsed.subject())) {
+                return null;
+            }
+            return parsed;
         } catch (Exception e) {
-            return new ValidateResponse(null, false, null);
+            return null;
         }
     }
-}
\ No newline at end of file
+}
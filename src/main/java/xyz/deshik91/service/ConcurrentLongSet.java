@@ -0,0 +1,150 @@
+package xyz.deshik91.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Множество long с открытой адресацией в одном AtomicLongArray: 8 байт на ячейку без объектов на элемент,
+ * заполнение не выше половины. Чтение без блокировок; вставка и удаление - CAS ячейки под read-lock,
+ * поэтому идут параллельно, а write-lock берет только перестройка таблицы.
+ * Значения 0 и 1 служебные (пустая и удаленная ячейка) и заменяются на 2 и 3.
+ */
+final class ConcurrentLongSet {
+
+    private static final long EMPTY = 0;
+    private static final long REMOVED = 1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile AtomicLongArray table;
+    // size - живые элементы, used - живые + удаленные (удаленные ячейки освобождает только перестройка)
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger used = new AtomicInteger();
+
+    ConcurrentLongSet(int expectedSize) {
+        this.table = new AtomicLongArray(capacityFor(expectedSize));
+    }
+
+    boolean contains(long value) {
+        long key = normalize(value);
+        AtomicLongArray t = table;
+        int mask = t.length() - 1;
+        for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+            long current = t.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    boolean add(long value) {
+        long key = normalize(value);
+        while (true) {
+            lock.readLock().lock();
+            try {
+                AtomicLongArray t = table;
+                if (used.get() < t.length() / 2) {
+                    return insert(t, key);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            rehash();
+        }
+    }
+
+    boolean remove(long value) {
+        long key = normalize(value);
+        lock.readLock().lock();
+        try {
+            AtomicLongArray t = table;
+            int mask = t.length() - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long current = t.get(i);
+                if (current == EMPTY) {
+                    return false;
+                }
+                if (current == key && t.compareAndSet(i, key, REMOVED)) {
+                    size.decrementAndGet();
+                    return true;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    // Вставка только в пустые ячейки: у одного ключа одна последовательность проб,
+    // поэтому два одновременных add одного значения борются за одну и ту же ячейку
+    private boolean insert(AtomicLongArray t, long key) {
+        int mask = t.length() - 1;
+        for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+            long current = t.get(i);
+            if (current == key) {
+                return false;
+            }
+            if (current == EMPTY) {
+                long witness = t.compareAndExchange(i, EMPTY, key);
+                if (witness == EMPTY) {
+                    size.incrementAndGet();
+                    used.incrementAndGet();
+                    return true;
+                }
+                if (witness == key) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void rehash() {
+        lock.writeLock().lock();
+        try {
+            AtomicLongArray old = table;
+            if (used.get() < old.length() / 2) {
+                return;
+            }
+            AtomicLongArray grown = new AtomicLongArray(capacityFor(size.get() + 1));
+            int mask = grown.length() - 1;
+            int live = 0;
+            for (int i = 0; i < old.length(); i++) {
+                long key = old.get(i);
+                if (key != EMPTY && key != REMOVED) {
+                    int slot = (int) key & mask;
+                    while (grown.get(slot) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown.set(slot, key);
+                    live++;
+                }
+            }
+            size.set(live);
+            used.set(live);
+            table = grown;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Емкость с запасом втрое: после перестройки заполнение от 1/6 до 1/3
+    private static int capacityFor(int expectedSize) {
+        long wanted = Math.max((long) expectedSize * 3, MIN_CAPACITY);
+        if (wanted >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private static long normalize(long value) {
+        return value == EMPTY || value == REMOVED ? value + 2 : value;
+    }
+}
@@ -0,0 +1,156 @@
+package xyz.deshik91.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.RevokedTokenRepository;
+import xyz.deshik91.repository.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Фоновая очистка устаревших данных: истекшие сессии, записи об отозванных токенах после exp,
+ * истекшие и давно использованные инвайты. Удаляет небольшими порциями с паузами,
+ * чтобы не держать долгих блокировок и не создавать всплесков работы для VACUUM.
+ * Выполняется только на одном узле кластера, в собственном потоке: паузы между порциями не должны
+ * занимать общий поток планировщика, на котором идут синхронизации отзывов, версий токенов и ключей.
+ */
+@Slf4j
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "auth.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSweeper {
+
+    private static final String LOCK_NAME = "data-sweeper";
+
+    private final SessionRepository sessionRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final InvitationRepository invitationRepository;
+    private final SchedulerLeaderElection leaderElection;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Duration expiredInvitationRetention;
+    private final Duration usedInvitationRetention;
+    private final Duration lease;
+    private final Timer duration;
+    // Один поток без очереди: если прошлый проход еще идет, следующий просто пропускается
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), DataSweeper::newSweeperThread, new ThreadPoolExecutor.AbortPolicy());
+
+    public DataSweeper(SessionRepository sessionRepository,
+                       RevokedTokenRepository revokedTokenRepository,
+                       InvitationRepository invitationRepository,
+                       SchedulerLeaderElection leaderElection,
+                       MeterRegistry meterRegistry,
+                       @Value("${auth.sweeper.chunk-size:1000}") int chunkSize,
+                       @Value("${auth.sweeper.pause-ms:100}") long pauseMs,
+                       @Value("${auth.sweeper.expired-invitation-retention-days:7}") long expiredInvitationRetentionDays,
+                       @Value("${auth.sweeper.used-invitation-retention-days:30}") long usedInvitationRetentionDays,
+                       @Value("${auth.sweeper.interval-ms:300000}") long intervalMs) {
+        this.sessionRepository = sessionRepository;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.invitationRepository = invitationRepository;
+        this.leaderElection = leaderElection;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.expiredInvitationRetention = Duration.ofDays(expiredInvitationRetentionDays);
+        this.usedInvitationRetention = Duration.ofDays(usedInvitationRetentionDays);
+        // Аренда переживает интервал между запусками, поэтому живой лидер не меняется
+        this.lease = Duration.ofMillis(intervalMs * 2);
+        this.duration = Timer.builder("auth.sweeper.duration")
+                .description("Время одного прохода очистки")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${auth.sweeper.interval-ms:300000}",
+            fixedDelayString = "${auth.sweeper.interval-ms:300000}")
+    public void scheduledSweep() {
+        if (!leaderElection.tryAcquire(LOCK_NAME, lease)) {
+            return;
+        }
+        try {
+            executor.execute(this::sweepQuietly);
+        } catch (RejectedExecutionException e) {
+            log.debug("Предыдущий проход очистки еще не закончился, пропускаем");
+        }
+    }
+
+    /**
+     * Один проход очистки по всем таблицам, без проверки лидерства.
+     */
+    public void sweep() {
+        duration.record(() -> {
+            Instant now = Instant.now();
+            long sessions = deleteInChunks("sessions",
+                    limit -> sessionRepository.deleteExpiredChunk(now, limit));
+            long revoked = deleteInChunks("revoked_tokens",
+                    limit -> revokedTokenRepository.deleteExpiredChunk(now, limit));
+            long invitations = deleteInChunks("invitations",
+                    limit -> invitationRepository.deleteStaleChunk(
+                            now.minus(expiredInvitationRetention), now.minus(usedInvitationRetention), limit));
+            if (sessions + revoked + invitations > 0) {
+                log.info("Очистка: удалено сессий {}, отозванных токенов {}, инвайтов {}",
+                        sessions, revoked, invitations);
+            }
+        });
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Фоновая очистка завершилась с ошибкой", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Прерывает паузу между порциями - проход завершается после текущей порции
+        executor.shutdownNow();
+    }
+
+    private static Thread newSweeperThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "data-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private long deleteInChunks(String table, IntUnaryOperator deleteChunk) {
+        Counter deleted = Counter.builder("auth.sweeper.deleted")
+                .description("Строки, удаленные фоновой очисткой")
+                .tag("table", table)
+                .register(meterRegistry);
+        long total = 0;
+        while (true) {
+            int removed = deleteChunk.applyAsInt(chunkSize);
+            total += removed;
+            deleted.increment(removed);
+            if (removed < chunkSize) {
+                return total;
+            }
+            // Пауза между порциями дает место рабочей нагрузке и автоочистке
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
+}
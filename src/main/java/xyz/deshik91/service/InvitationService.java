@@ -0,0 +1,121 @@
+package xyz.deshik91.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.deshik91.dto.request.GenerateInvitationsRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.model.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Массовая генерация инвайтов для кампаний онбординга.
+ * Коды создаются и записываются пачками: каждая пачка - транзакция с пакетной JDBC-вставкой,
+ * после коммита пачка отдается потребителю и больше не держится в памяти.
+ */
+@Slf4j
+@Service
+@Profile("!memory")
+public class InvitationService {
+
+    // Crockford Base32: без I, L, O, U, чтобы код было легко продиктовать и перепечатать
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 20;  // 100 бит случайности
+
+    private final TransactionTemplate transactionTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InvitationService(TransactionTemplate transactionTemplate,
+                             @Value("${auth.invitations.batch-size:500}") int batchSize) {
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Создает инвайты: по одному на каждый email из списка или count штук для любого email.
+     *
+     * @param batchConsumer получает каждую пачку после ее коммита
+     * @return число созданных инвайтов
+     */
+    public long generate(GenerateInvitationsRequest request, Consumer<List<InvitationEntity>> batchConsumer) {
+        List<String> emails = request.getEmails();
+        boolean boundToEmails = emails != null && !emails.isEmpty();
+        if (boundToEmails == (request.getCount() != null)) {
+            throw new RuntimeException("Укажите либо count, либо список emails");
+        }
+        if (boundToEmails && emails.stream().anyMatch(email -> email == null || !email.contains("@"))) {
+            throw new RuntimeException("Список emails содержит некорректный адрес");
+        }
+
+        int total = boundToEmails ? emails.size() : request.getCount();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(Duration.ofDays(request.getValidDays()));
+
+        long created = 0;
+        while (created < total) {
+            int size = (int) Math.min(batchSize, total - created);
+            List<InvitationEntity> batch = new ArrayList<>(size);
+            // Коллизии внутри пачки отсекаем в памяти; между пачками и с уже существующими кодами
+            // их вероятность при 100 битах ничтожна, а последняя защита - unique-ограничение на code
+            Set<String> codes = new HashSet<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String code;
+                do {
+                    code = randomCode();
+                } while (!codes.add(code));
+
+                InvitationEntity invitation = new InvitationEntity();
+                invitation.setCode(code);
+                invitation.setEmail(boundToEmails ? User.normalizeEmail(emails.get((int) created + i)) : null);
+                invitation.setUsed(false);
+                invitation.setExpiresAt(expiresAt);
+                invitation.setCreatedAt(now);
+                batch.add(invitation);
+            }
+
+            insertBatch(batch);
+            batchConsumer.accept(batch);
+            created += size;
+        }
+
+        log.info("Создано инвайтов: {}", created);
+        return created;
+    }
+
+    private void insertBatch(List<InvitationEntity> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (InvitationEntity invitation : batch) {
+                entityManager.persist(invitation);
+            }
+            // Сбрасываем пачку в БД и отпускаем сущности, чтобы контекст не рос
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private String randomCode() {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            code[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(code);
+    }
+}
@@ -0,0 +1,145 @@
+package xyz.deshik91.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.exception.ServiceOverloadedException;
+import xyz.deshik91.monitoring.RequestTimings;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выполняет хеширование и проверку паролей на отдельном пуле по числу ядер с ограниченной очередью.
+ * Всплеск логинов не может занять все потоки Tomcat: лишние запросы сразу получают 503,
+ * а /validate и /refresh продолжают обслуживаться.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+    private final Timer hashTimer;
+    private final Timer verifyMatch;
+    private final Timer verifyMismatch;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${auth.hashing.threads:0}") int threads,
+                          @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                queue, new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hashing.queue.size", queue, BlockingQueue::size)
+                .description("Задачи хеширования, ожидающие свободного потока")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Потоки, занятые хешированием прямо сейчас")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Запросы, отклоненные с 503 из-за переполненной очереди")
+                .register(meterRegistry);
+        // Время самого алгоритма в потоке пула, без ожидания в очереди (его видно по auth.hashing.queue.size)
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .description("Время хеширования пароля")
+                .register(meterRegistry);
+        this.verifyMatch = verifyTimer(meterRegistry, "match");
+        this.verifyMismatch = verifyTimer(meterRegistry, "mismatch");
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.password.verify")
+                .description("Время проверки пароля")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(() -> hashTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(() -> {
+            long start = System.nanoTime();
+            boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
+            (matches ? verifyMatch : verifyMismatch).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return matches;
+        });
+    }
+
+    /**
+     * Хеш сделан другим алгоритмом или с меньшей стоимостью, чем текущая политика. Дешевая проверка формата.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T await(Callable<T> task) {
+        // Для Server-Timing - время на потоке запроса, вместе с ожиданием в очереди пула
+        long start = System.nanoTime();
+        try {
+            return submitAndWait(RequestTimings.trackAllocations(task));
+        } finally {
+            RequestTimings.addHash(System.nanoTime() - start);
+        }
+    }
+
+    private <T> T submitAndWait(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Сервис перегружен, повторите попытку позже", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Хеширование пароля прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package xyz.deshik91.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.entity.SchedulerLockEntity;
+import xyz.deshik91.repository.SchedulerLockRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Выбор узла для фоновых задач через аренду в таблице scheduler_locks.
+ * Лидер продлевает аренду при каждом запуске; если он пропал, задачу подхватит
+ * другой узел после истечения аренды. Отдельный координатор не нужен - хватает общей БД.
+ */
+@Slf4j
+@Component
+@Profile("!memory")
+public class SchedulerLeaderElection {
+
+    private final SchedulerLockRepository repository;
+    private final String nodeId;
+
+    public SchedulerLeaderElection(SchedulerLockRepository repository,
+                                   @Value("${auth.node-id:}") String nodeId) {
+        this.repository = repository;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    /**
+     * @return true, если этот узел - лидер задачи name на ближайшие lease
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        Instant now = Instant.now();
+        if (repository.tryAcquire(name, nodeId, now, now.plus(lease)) == 1) {
+            return true;
+        }
+        if (repository.existsById(name)) {
+            return false;
+        }
+        // Первый запуск задачи в кластере: строки аренды еще нет, вставку выиграет один узел
+        try {
+            repository.save(new SchedulerLockEntity(name, nodeId, now.plus(lease)));
+            log.info("Узел {} стал лидером задачи {}", nodeId, name);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,161 @@
+package xyz.deshik91.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.entity.RevokedTokenEntity;
+import xyz.deshik91.repository.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Список отозванных jti, которые еще не истекли.
+ * Источник истины - таблица revoked_tokens, в памяти - корзины по времени exp:
+ * корзина целиком выбрасывается, когда все ее токены истекли.
+ * Перед корзинами стоит Bloom-фильтр, поэтому для не отозванного токена (почти все запросы
+ * /api/auth/validate) проверка - несколько чтений из массива без блокировок и без БД.
+ * В профиле memory таблицы нет: отзывы живут только в памяти этого узла.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // Отзывы на других узлах подтягиваются с запасом на расхождение часов
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final Optional<RevokedTokenRepository> repository;
+    private final long bucketMillis;
+    private final int expectedEntries;
+
+    // Номер корзины (exp / bucketMillis) -> jti токенов, истекающих в этом интервале
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    private volatile BloomFilter filter;
+    private int entries;
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    public TokenRevocationList(Optional<RevokedTokenRepository> repository,
+                               @Value("${auth.revocation.bucket-seconds:60}") long bucketSeconds,
+                               @Value("${auth.revocation.expected-entries:100000}") int expectedEntries) {
+        this.repository = repository;
+        this.bucketMillis = bucketSeconds * 1000;
+        this.expectedEntries = expectedEntries;
+        this.filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Проверка на горячем пути: без блокировок и без обращения к БД.
+     */
+    public boolean isRevoked(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return false;
+        }
+        if (!filter.mightContain(jti)) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(expiresAt));
+        return bucket != null && bucket.contains(jti);
+    }
+
+    /**
+     * Отзывает токен до его exp: запись в БД (для других узлов и рестарта) и сразу в память.
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        Instant now = Instant.now();
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(now)) {
+            return;
+        }
+        try {
+            repository.ifPresent(revoked -> revoked.save(new RevokedTokenEntity(jti, expiresAt, now)));
+        } catch (DataIntegrityViolationException e) {
+            // Уже отозван - повторный отзыв ничего не меняет
+        }
+        remember(jti, expiresAt);
+    }
+
+    public synchronized int size() {
+        return entries;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (repository.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (RevokedTokenEntity revoked : repository.get().findByExpiresAtAfter(now)) {
+            remember(revoked.getJti(), revoked.getExpiresAt());
+        }
+        syncedUntil = now;
+        log.info("Список отозванных токенов загружен: {} jti", size());
+    }
+
+    // Отзывы, сделанные на других узлах
+    @Scheduled(initialDelayString = "${auth.revocation.sync-interval-ms:5000}",
+            fixedDelayString = "${auth.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        if (repository.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (RevokedTokenEntity revoked : repository.get().findByRevokedAtAfterAndExpiresAtAfter(
+                syncedUntil.minus(SYNC_OVERLAP), now)) {
+            remember(revoked.getJti(), revoked.getExpiresAt());
+        }
+        syncedUntil = now;
+    }
+
+    /**
+     * Выбрасывает корзины, все токены которых уже истекли, и пересобирает фильтр без них.
+     * Строки в БД не трогает.
+     */
+    @Scheduled(fixedDelayString = "PT${auth.revocation.bucket-seconds:60}S")
+    public synchronized void purgeExpired() {
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(bucketOf(Instant.now()));
+        if (expired.isEmpty()) {
+            return;
+        }
+        expired.clear();
+        rebuildFilter();
+    }
+
+    // Пишущие операции редки и сериализуются, чтобы пересборка фильтра не потеряла параллельную вставку
+    private synchronized void remember(String jti, Instant expiresAt) {
+        if (buckets.computeIfAbsent(bucketOf(expiresAt), key -> ConcurrentHashMap.newKeySet()).add(jti)) {
+            entries++;
+        }
+        if (entries > filter.capacity()) {
+            rebuildFilter();
+        } else {
+            filter.put(jti);
+        }
+    }
+
+    private void rebuildFilter() {
+        int count = 0;
+        for (Set<String> bucket : buckets.values()) {
+            count += bucket.size();
+        }
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, count * 2), FALSE_POSITIVE_RATE);
+        for (Set<String> bucket : buckets.values()) {
+            bucket.forEach(fresh::put);
+        }
+        entries = count;
+        filter = fresh;
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return expiresAt.toEpochMilli() / bucketMillis;
+    }
+}
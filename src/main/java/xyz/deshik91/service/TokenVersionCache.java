@@ -0,0 +1,103 @@
+package xyz.deshik91.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.store.UserStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Текущие версии токенов пользователей в памяти процесса.
+ * Хранятся только версии, изменившиеся за последний срок жизни токенов: токены, выданные до более
+ * раннего выхода со всех устройств, уже истекли, и для проверки такой пользователь не отличается
+ * от пользователя с версией 0. Поэтому кеш не растет с числом всех когда-либо выходивших пользователей,
+ * а проверка на /api/auth/validate - один get из хеш-таблицы.
+ * Другие узлы синхронизируются по времени изменения, как {@link TokenRevocationList}: читаются только
+ * новые изменения, и версия в кеше только растет, поэтому медленная синхронизация не откатит свежий
+ * {@link #advance}.
+ */
+@Slf4j
+@Component
+public class TokenVersionCache {
+
+    // Изменения на других узлах подтягиваются с запасом на расхождение часов
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private record Entry(int tokenVersion, Instant changedAt) {
+    }
+
+    private final UserStore userStore;
+    private final Duration retention;
+    private final ConcurrentHashMap<String, Entry> versions = new ConcurrentHashMap<>();
+    private volatile Instant syncedUntil;
+
+    public TokenVersionCache(UserStore userStore,
+                             @Value("${auth.token-version.retention-ms:604800000}") long retentionMs) {
+        this.userStore = userStore;
+        this.retention = Duration.ofMillis(retentionMs);
+    }
+
+    public int current(String email) {
+        Entry entry = versions.get(email);
+        return entry != null ? entry.tokenVersion() : 0;
+    }
+
+    /**
+     * Версия увеличена на этом узле - применяем сразу, не дожидаясь синхронизации.
+     */
+    public void advance(String email, int tokenVersion) {
+        merge(email, tokenVersion, Instant.now());
+    }
+
+    public void forget(String email) {
+        versions.remove(email);
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Instant now = Instant.now();
+        load(now.minus(retention), now);
+        log.info("Версии токенов загружены: {} пользователей", versions.size());
+    }
+
+    // Выход со всех устройств, сделанный на другом узле, вступает в силу здесь не позже чем через интервал
+    @Scheduled(initialDelayString = "${auth.token-version.sync-interval-ms:5000}",
+            fixedDelayString = "${auth.token-version.sync-interval-ms:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        Instant since = syncedUntil != null ? syncedUntil.minus(SYNC_OVERLAP) : now.minus(retention);
+        load(since, now);
+    }
+
+    /**
+     * Выбрасывает версии старше срока жизни токенов: все токены с более старой версией уже истекли.
+     */
+    @Scheduled(fixedDelayString = "${auth.token-version.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        versions.values().removeIf(entry -> entry.changedAt().isBefore(cutoff));
+    }
+
+    private void load(Instant since, Instant now) {
+        for (UserStore.TokenVersionChange change : userStore.findTokenVersionsChangedAfter(since)) {
+            merge(change.email(), change.tokenVersion(), change.changedAt());
+        }
+        syncedUntil = now;
+    }
+
+    // Версия только растет: строка, прочитанная до параллельного advance, не затирает более новую
+    private void merge(String email, int tokenVersion, Instant changedAt) {
+        versions.merge(email, new Entry(tokenVersion, changedAt),
+                (current, update) -> current.tokenVersion() >= update.tokenVersion() ? current : update);
+    }
+}
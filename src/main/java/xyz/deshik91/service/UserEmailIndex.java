@@ -0,0 +1,197 @@
+package xyz.deshik91.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.model.User;
+import xyz.deshik91.store.UserStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Индекс email существующих пользователей в памяти процесса.
+ * Убирает запрос к БД из /api/auth/validate: пользователи почти никогда не удаляются,
+ * поэтому положительный ответ берется из памяти, а промах перепроверяется в БД
+ * (пользователь мог зарегистрироваться на другом узле).
+ * Хранятся не строки, а 64-битные хеши email в {@link ConcurrentLongSet}: около 16-48 байт на пользователя
+ * вместо ~150 байт на String и узел ConcurrentHashMap. Хеш с солью процесса, поэтому коллизию нельзя
+ * подобрать заранее; ее вероятность при миллионах пользователей - порядка 10^-7.
+ * Email приходят уже в форме {@link User#normalizeEmail}, поэтому хеш от регистра не зависит.
+ */
+@Slf4j
+@Component
+public class UserEmailIndex {
+
+    private static final long SEED = ThreadLocalRandom.current().nextLong();
+
+    private final UserStore userStore;
+    private final int pageSize;
+    private volatile ConcurrentLongSet emails = new ConcurrentLongSet(0);
+    // Пока идет пересборка - изменения, пришедшие во время чтения БД; переносятся в новый индекс перед заменой
+    private final Object changesLock = new Object();
+    private List<Change> pendingChanges;
+
+    private record Change(long hash, boolean added) {
+    }
+
+    public UserEmailIndex(UserStore userStore,
+                          @Value("${auth.user-index.page-size:10000}") int pageSize) {
+        this.userStore = userStore;
+        this.pageSize = pageSize;
+    }
+
+    public boolean contains(String email) {
+        long hash = hash(email);
+        if (emails.contains(hash)) {
+            return true;
+        }
+        // Промах: проверяем в БД и запоминаем, если пользователь появился на другом узле
+        if (userStore.existsByEmail(email)) {
+            apply(hash, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Проверка только по памяти, без запроса к БД. Годится для быстрого отказа:
+     * положительный ответ берется как есть, а отрицательный нужно подтверждать в БД.
+     */
+    public boolean containsLocally(String email) {
+        return emails.contains(hash(email));
+    }
+
+    /**
+     * Пакетная версия {@link #contains(String)}: все промахи индекса проверяются одним запросом {@code IN (...)}.
+     */
+    public Set<String> findExisting(Collection<String> candidates) {
+        ConcurrentLongSet current = emails;
+        Set<String> existing = new HashSet<>();
+        List<String> misses = new ArrayList<>();
+        for (String email : candidates) {
+            if (current.contains(hash(email))) {
+                existing.add(email);
+            } else {
+                misses.add(email);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (String email : userStore.findExistingEmails(misses)) {
+                apply(hash(email), true);
+                existing.add(email);
+            }
+        }
+        return existing;
+    }
+
+    public void add(String email) {
+        apply(hash(email), true);
+    }
+
+    public void remove(String email) {
+        apply(hash(email), false);
+    }
+
+    // Изменения редкие (регистрация, удаление, промах), поэтому одна блокировка на них не мешает;
+    // проверки contains идут мимо нее
+    private void apply(long hash, boolean added) {
+        synchronized (changesLock) {
+            if (added) {
+                emails.add(hash);
+            } else {
+                emails.remove(hash);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(new Change(hash, added));
+            }
+        }
+    }
+
+    public int size() {
+        return emails.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        rebuild();
+        log.info("Индекс пользователей прогрет: {} email", emails.size());
+    }
+
+    /**
+     * Сверка с БД: индекс целиком пересобирается keyset-страницами. Сравнивать с БД только новые id
+     * или только число строк нельзя: id из блоков последовательности разных узлов приходят не по порядку,
+     * и одна пропущенная вставка скрыла бы от счетчика удаление - токены удаленного пользователя
+     * продолжали бы проходить проверку. Пропущенная вставка сама по себе безопасна - промах перепроверяется в БД.
+     */
+    @Scheduled(initialDelayString = "${auth.user-index.reconcile-interval-ms:300000}",
+            fixedDelayString = "${auth.user-index.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        int before = emails.size();
+        rebuild();
+        log.debug("Индекс пользователей сверен с БД: {} email, было {}", emails.size(), before);
+    }
+
+    private void rebuild() {
+        synchronized (changesLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        ConcurrentLongSet fresh = new ConcurrentLongSet(Math.max(emails.size(), 1024));
+        boolean loaded = false;
+        try {
+            load(fresh);
+            loaded = true;
+        } finally {
+            // Добавления и удаления на этом узле во время чтения могли не попасть в прочитанные страницы
+            synchronized (changesLock) {
+                if (loaded) {
+                    for (Change change : pendingChanges) {
+                        if (change.added()) {
+                            fresh.add(change.hash());
+                        } else {
+                            fresh.remove(change.hash());
+                        }
+                    }
+                    emails = fresh;
+                }
+                pendingChanges = null;
+            }
+        }
+    }
+
+    private void load(ConcurrentLongSet target) {
+        long afterId = 0;
+        while (true) {
+            List<UserStore.EmailRow> page = userStore.findEmailsAfterId(afterId, pageSize);
+            for (UserStore.EmailRow row : page) {
+                target.add(hash(row.email()));
+                afterId = row.id();
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    // FNV-1a с солью и финальным перемешиванием из MurmurHash3 (fmix64)
+    private static long hash(String email) {
+        long h = SEED;
+        for (int i = 0; i < email.length(); i++) {
+            h ^= email.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,63 @@
+package xyz.deshik91.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import xyz.deshik91.dto.response.UserExportRow;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка пользователей страницами по ключу: {@code where id > :last order by id limit N}.
+ * В отличие от OFFSET каждая страница - короткий проход по индексу первичного ключа,
+ * а строки читаются DTO-проекцией, поэтому в контекст персистентности ничего не попадает
+ * и расход памяти не зависит от числа пользователей.
+ */
+@Service
+@Profile("!memory")
+public class UserExportService {
+
+    private final int pageSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserExportService(@Value("${auth.export.page-size:1000}") int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param afterId выгрузка начинается с пользователя, следующего за этим id (0 - с начала);
+     *                позволяет продолжить прерванную выгрузку
+     * @return число выгруженных пользователей
+     */
+    public long exportUsers(long afterId, Consumer<List<UserExportRow>> pageConsumer) {
+        long exported = 0;
+        long lastId = afterId;
+        while (true) {
+            List<UserExportRow> page = entityManager.createQuery(
+                            "select new xyz.deshik91.dto.response.UserExportRow(u.id, u.email, u.createdAt) " +
+                                    "from UserEntity u where u.id > :lastId order by u.id", UserExportRow.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(pageSize)
+                    // Драйвер забирает страницу за один сетевой обмен; PostgreSQL без fetch size читает все сразу
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, pageSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultList();
+            if (page.isEmpty()) {
+                return exported;
+            }
+
+            pageConsumer.accept(page);
+            exported += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            if (page.size() < pageSize) {
+                return exported;
+            }
+        }
+    }
+}
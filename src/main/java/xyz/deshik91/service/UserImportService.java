@@ -0,0 +1,223 @@
+package xyz.deshik91.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.deshik91.dto.request.ImportUserRecord;
+import xyz.deshik91.dto.response.ImportProgress;
+import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.model.User;
+import xyz.deshik91.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Массовый импорт пользователей с уже захешированными паролями (миграция из другой системы).
+ * Вход читается построчно, в памяти держится только текущая пачка, поэтому расход памяти
+ * не зависит от размера файла. Каждая пачка - отдельная транзакция с пакетной JDBC-вставкой.
+ */
+@Slf4j
+@Service
+@Profile("!memory")
+public class UserImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserImportService(UserRepository userRepository,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.import.batch-size:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param progressListener получает прогресс после каждой пачки и итог с done = true
+     */
+    public ImportProgress importUsers(InputStream input, Format format, Consumer<ImportProgress> progressListener)
+            throws IOException {
+        ImportProgress progress = new ImportProgress();
+        List<UserEntity> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            boolean firstLine = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                // Заголовок CSV пропускаем
+                if (firstLine && format == Format.CSV && line.startsWith("email,")) {
+                    firstLine = false;
+                    continue;
+                }
+                firstLine = false;
+
+                progress.setProcessed(progress.getProcessed() + 1);
+                UserEntity user = parse(line, format);
+                if (user == null) {
+                    progress.setInvalid(progress.getInvalid() + 1);
+                    continue;
+                }
+
+                batch.add(user);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, progress);
+                    batch.clear();
+                    progressListener.accept(progress);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            writeBatch(batch, progress);
+        }
+        progress.setDone(true);
+        progressListener.accept(progress);
+        log.info("Импорт пользователей завершен: прочитано {}, создано {}, пропущено {}, с ошибками {}",
+                progress.getProcessed(), progress.getImported(), progress.getSkipped(), progress.getInvalid());
+        return progress;
+    }
+
+    private void writeBatch(List<UserEntity> batch, ImportProgress progress) {
+        int imported;
+        try {
+            imported = transactionTemplate.execute(status -> insertBatch(batch));
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            // Email занят между проверкой и вставкой (например, одновременной регистрацией):
+            // откатилась вся пачка, поэтому повторяем ее построчно и пропускаем только конфликтующие строки
+            log.info("Пачка импорта из {} строк отклонена БД, повтор по одной строке: {}", batch.size(), e.getMessage());
+            imported = insertOneByOne(batch);
+        }
+
+        // Счетчики меняем только после коммита пачки
+        progress.setImported(progress.getImported() + imported);
+        progress.setSkipped(progress.getSkipped() + batch.size() - imported);
+    }
+
+    private int insertBatch(List<UserEntity> batch) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        // Уже существующие email - одним запросом на пачку, повторы внутри пачки - по множеству.
+        // Email уже нормализованы при разборе, поэтому сравнение точное
+        Set<String> emails = new HashSet<>();
+        for (UserEntity user : batch) {
+            emails.add(user.getEmail());
+        }
+        Set<String> taken = new HashSet<>(userRepository.findExistingEmails(emails));
+
+        int persisted = 0;
+        for (UserEntity user : batch) {
+            if (taken.add(user.getEmail())) {
+                entityManager.persist(user);
+                persisted++;
+            }
+        }
+
+        // Сбрасываем пачку в БД и отпускаем сущности, чтобы контекст не рос
+        entityManager.flush();
+        entityManager.clear();
+        return persisted;
+    }
+
+    private int insertOneByOne(List<UserEntity> batch) {
+        int persisted = 0;
+        for (UserEntity user : batch) {
+            // Сущности из откатившейся пачки уже получили id - вставляем копии
+            UserEntity copy = new UserEntity();
+            copy.setEmail(user.getEmail());
+            copy.setPasswordHash(user.getPasswordHash());
+            copy.setCreatedAt(user.getCreatedAt());
+            try {
+                Boolean inserted = transactionTemplate.execute(status -> {
+                    if (userRepository.existsByEmail(copy.getEmail())) {
+                        return false;
+                    }
+                    userRepository.saveAndFlush(copy);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(inserted)) {
+                    persisted++;
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Email заняли и между этими двумя запросами - строка пропущена
+            }
+        }
+        return persisted;
+    }
+
+    private UserEntity parse(String line, Format format) {
+        String email;
+        String passwordHash;
+        Instant createdAt = null;
+        try {
+            if (format == Format.NDJSON) {
+                ImportUserRecord record = objectMapper.readValue(line, ImportUserRecord.class);
+                email = record.getEmail();
+                passwordHash = record.getPasswordHash();
+                createdAt = record.getCreatedAt();
+            } else {
+                // email,password_hash[,created_at] - в хешах BCrypt/Argon2/PBKDF2 запятых нет
+                String[] columns = line.split(",", -1);
+                email = columns[0].trim();
+                passwordHash = columns.length > 1 ? columns[1].trim() : null;
+                if (columns.length > 2 && !columns[2].isBlank()) {
+                    createdAt = Instant.parse(columns[2].trim());
+                }
+            }
+        } catch (Exception e) {
+            return null;
+        }
+
+        if (email == null || email.isBlank() || !email.contains("@") || !isSupportedHash(passwordHash)) {
+            return null;
+        }
+
+        UserEntity user = new UserEntity();
+        user.setEmail(User.normalizeEmail(email));
+        user.setPasswordHash(passwordHash);
+        user.setCreatedAt(createdAt != null ? createdAt : Instant.now());
+        return user;
+    }
+
+    // Формат, который понимает DelegatingPasswordEncoder: хеш с префиксом алгоритма или BCrypt без префикса
+    private static boolean isSupportedHash(String passwordHash) {
+        if (passwordHash == null || passwordHash.isBlank()) {
+            return false;
+        }
+        return passwordHash.startsWith("{bcrypt}")
+                || passwordHash.startsWith("{argon2}")
+                || passwordHash.startsWith("{pbkdf2}")
+                || passwordHash.startsWith("$2a$")
+                || passwordHash.startsWith("$2b$")
+                || passwordHash.startsWith("$2y$");
+    }
+}
@@ -0,0 +1,66 @@
+package xyz.deshik91.store;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.model.Invitation;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Инвайты в памяти процесса (профиль memory). Занятие инвайта - compare-and-swap флага used,
+ * поэтому один код нельзя использовать дважды и без блокировок. Истекшие инвайты удаляются по расписанию.
+ */
+@Component
+@Profile("memory")
+public class InMemoryInvitationStore implements InvitationStore {
+
+    private final Map<String, Slot> invitations = new ConcurrentHashMap<>();
+
+    private record Slot(String code, String email, Instant expiresAt, Instant createdAt, AtomicBoolean used) {
+
+        Invitation toModel() {
+            return new Invitation(code, email, used.get(), expiresAt, createdAt);
+        }
+    }
+
+    @Override
+    public Optional<Invitation> findByCode(String code) {
+        Slot slot = invitations.get(code);
+        return slot != null ? Optional.of(slot.toModel()) : Optional.empty();
+    }
+
+    @Override
+    public boolean claim(String code, String email, Instant now) {
+        Slot slot = invitations.get(code);
+        if (slot == null || !slot.expiresAt().isAfter(now)
+                || (slot.email() != null && !slot.email().equals(email))
+                || !slot.used().compareAndSet(false, true)) {
+            return false;
+        }
+        InMemoryTransactions.onRollback(() -> slot.used().set(false));
+        return true;
+    }
+
+    @Override
+    public void save(Invitation invitation) {
+        invitations.put(invitation.getCode(), new Slot(invitation.getCode(), invitation.getEmail(),
+                invitation.getExpiresAt(), invitation.getCreatedAt(), new AtomicBoolean(invitation.isUsed())));
+    }
+
+    @Override
+    public long count() {
+        return invitations.size();
+    }
+
+    @Scheduled(initialDelayString = "${auth.memory.purge-interval-ms:60000}",
+            fixedDelayString = "${auth.memory.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        invitations.values().removeIf(slot -> !slot.expiresAt().isAfter(now));
+    }
+}
@@ -0,0 +1,117 @@
+package xyz.deshik91.store;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.model.User;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сессии в памяти процесса (профиль memory). Ротация refresh токена - условное удаление старой записи
+ * (ровно один из одновременных вызовов его выигрывает), сессии пользователя дополнительно индексируются
+ * по его id для выхода со всех устройств. Истекшие сессии удаляются по расписанию.
+ */
+@Component
+@Profile("memory")
+public class InMemorySessionStore implements SessionStore {
+
+    private final InMemoryUserStore userStore;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final LongIndex<Set<String>> sessionsByUser = new LongIndex<>();
+
+    private record Session(long userId, String tokenHash, Instant expiresAt) {
+    }
+
+    public InMemorySessionStore(InMemoryUserStore userStore) {
+        this.userStore = userStore;
+    }
+
+    @Override
+    public void create(String jti, long userId, String tokenHash, Instant createdAt, Instant expiresAt) {
+        Session session = new Session(userId, tokenHash, expiresAt);
+        sessions.put(jti, session);
+        userSessions(userId).add(jti);
+        InMemoryTransactions.onRollback(() -> remove(jti, session));
+    }
+
+    @Override
+    public boolean rotate(String oldJti, String oldHash, String newJti, String newHash, Instant newExpiresAt) {
+        Session old = sessions.get(oldJti);
+        if (old == null || !old.tokenHash().equals(oldHash) || !sessions.remove(oldJti, old)) {
+            return false;
+        }
+        sessions.put(newJti, new Session(old.userId(), newHash, newExpiresAt));
+        Set<String> jtis = userSessions(old.userId());
+        jtis.add(newJti);
+        jtis.remove(oldJti);
+        return true;
+    }
+
+    @Override
+    public boolean exists(String jti, String tokenHash) {
+        Session session = sessions.get(jti);
+        return session != null && session.tokenHash().equals(tokenHash);
+    }
+
+    @Override
+    public void delete(String jti, String tokenHash) {
+        Session session = sessions.get(jti);
+        if (session != null && session.tokenHash().equals(tokenHash)) {
+            remove(jti, session);
+        }
+    }
+
+    @Override
+    public void deleteAllByUserEmail(String email) {
+        Long userId = userStore.findByEmail(email).map(User::getId).orElse(null);
+        Set<String> jtis = userId != null ? sessionsByUser.get(userId) : null;
+        if (jtis == null) {
+            return;
+        }
+        for (Iterator<String> iterator = jtis.iterator(); iterator.hasNext(); ) {
+            sessions.remove(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Scheduled(initialDelayString = "${auth.memory.purge-interval-ms:60000}",
+            fixedDelayString = "${auth.memory.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        sessions.forEach((jti, session) -> {
+            if (!session.expiresAt().isAfter(now)) {
+                remove(jti, session);
+            }
+        });
+    }
+
+    private void remove(String jti, Session session) {
+        if (sessions.remove(jti, session)) {
+            Set<String> jtis = sessionsByUser.get(session.userId());
+            if (jtis != null) {
+                jtis.remove(jti);
+            }
+        }
+    }
+
+    private Set<String> userSessions(long userId) {
+        Set<String> jtis = sessionsByUser.get(userId);
+        if (jtis == null) {
+            Set<String> fresh = ConcurrentHashMap.newKeySet();
+            jtis = sessionsByUser.putIfAbsent(userId, fresh);
+            if (jtis == null) {
+                jtis = fresh;
+            }
+        }
+        return jtis;
+    }
+}
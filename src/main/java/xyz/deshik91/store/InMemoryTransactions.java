@@ -0,0 +1,63 @@
+package xyz.deshik91.store;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Транзакции для хранилищ в памяти: каждая операция хранилища атомарна сама по себе,
+ * а здесь копится журнал отмены, который проигрывается в обратном порядке при исключении или setRollbackOnly.
+ * Этого достаточно для регистрации: инвайт, занятый до неудачной вставки пользователя, освобождается.
+ * Изоляции нет - до отката другие потоки видят промежуточные изменения.
+ */
+@Component
+@Profile("memory")
+public class InMemoryTransactions implements TransactionOperations {
+
+    private static final ThreadLocal<Deque<Runnable>> UNDO_LOG = new ThreadLocal<>();
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) {
+        // Вложенный вызов присоединяется к внешней транзакции
+        if (UNDO_LOG.get() != null) {
+            return action.doInTransaction(new SimpleTransactionStatus(false));
+        }
+
+        Deque<Runnable> undoLog = new ArrayDeque<>();
+        UNDO_LOG.set(undoLog);
+        try {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            T result = action.doInTransaction(status);
+            if (status.isRollbackOnly()) {
+                rollback(undoLog);
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            rollback(undoLog);
+            throw e;
+        } finally {
+            UNDO_LOG.remove();
+        }
+    }
+
+    /**
+     * Регистрирует отмену только что сделанного изменения; вне транзакции ничего не делает.
+     */
+    static void onRollback(Runnable undo) {
+        Deque<Runnable> undoLog = UNDO_LOG.get();
+        if (undoLog != null) {
+            undoLog.push(undo);
+        }
+    }
+
+    private static void rollback(Deque<Runnable> undoLog) {
+        while (!undoLog.isEmpty()) {
+            undoLog.pop().run();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package xyz.deshik91.store;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.model.User;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Пользователи в памяти процесса (профиль memory): режим одного узла без БД, данные не переживают рестарт.
+ * Email -> пользователь разбит на шарды, чтобы даже миллионы записей не требовали одной огромной
+ * хеш-таблицы (ее рост - копирование всего массива и humongous-объект в G1). Id -> пользователь -
+ * страничный индекс по long без упаковки. Оба индекса указывают на один слот с неизменяемой строкой,
+ * изменения - compare-and-swap слота, поэтому блокировок нет.
+ */
+@Component
+@Profile("memory")
+public class InMemoryUserStore implements UserStore {
+
+    private static final int SHARD_BITS = 6;
+
+    // Все таблицы меняются одной ссылкой, поэтому clear() атомарен для читателей
+    private volatile Tables tables = new Tables();
+
+    private record Row(long id, String email, String passwordHash, int tokenVersion, Instant createdAt) {
+
+        User toModel() {
+            return new User(id, email, passwordHash, tokenVersion, createdAt);
+        }
+    }
+
+    private static final class Tables {
+
+        @SuppressWarnings("unchecked")
+        final ConcurrentHashMap<String, AtomicReference<Row>>[] byEmail = new ConcurrentHashMap[1 << SHARD_BITS];
+        final LongIndex<AtomicReference<Row>> byId = new LongIndex<>();
+        final AtomicLong ids = new AtomicLong();
+        // Только менявшиеся версии токенов - изменения каждые несколько секунд читает TokenVersionCache
+        final ConcurrentHashMap<String, TokenVersionChange> changedVersions = new ConcurrentHashMap<>();
+
+        Tables() {
+            for (int i = 0; i < byEmail.length; i++) {
+                byEmail[i] = new ConcurrentHashMap<>();
+            }
+        }
+
+        ConcurrentHashMap<String, AtomicReference<Row>> shard(String email) {
+            // Старшие биты мультипликативного хеша: младшие биты hashCode нужны самой ConcurrentHashMap внутри шарда
+            return byEmail[(email.hashCode() * 0x9E3779B9) >>> (32 - SHARD_BITS)];
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        AtomicReference<Row> slot = tables.shard(email).get(email);
+        return slot != null ? Optional.of(slot.get().toModel()) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return tables.shard(email).containsKey(email);
+    }
+
+    @Override
+    public User create(String email, String passwordHash, Instant createdAt) {
+        Tables current = tables;
+        Row row = new Row(current.ids.incrementAndGet(), email, passwordHash, 0, createdAt);
+        AtomicReference<Row> slot = new AtomicReference<>(row);
+
+        // Сначала индекс по id: найденный по email пользователь всегда доступен и по id
+        current.byId.put(row.id(), slot);
+        ConcurrentHashMap<String, AtomicReference<Row>> shard = current.shard(email);
+        if (shard.putIfAbsent(email, slot) != null) {
+            current.byId.remove(row.id(), slot);
+            throw new DuplicateKeyException("Email уже зарегистрирован");
+        }
+
+        InMemoryTransactions.onRollback(() -> {
+            shard.remove(email, slot);
+            current.byId.remove(row.id(), slot);
+        });
+        return row.toModel();
+    }
+
+    @Override
+    public void updatePasswordHash(long id, String passwordHash) {
+        AtomicReference<Row> slot = tables.byId.get(id);
+        if (slot != null) {
+            slot.updateAndGet(row -> new Row(row.id(), row.email(), passwordHash, row.tokenVersion(), row.createdAt()));
+        }
+    }
+
+    @Override
+    public boolean incrementTokenVersion(String email, int expectedVersion) {
+        Tables current = tables;
+        AtomicReference<Row> slot = current.shard(email).get(email);
+        if (slot == null) {
+            return false;
+        }
+        while (true) {
+            Row row = slot.get();
+            if (row.tokenVersion() != expectedVersion) {
+                return false;
+            }
+            Row next = new Row(row.id(), row.email(), row.passwordHash(), expectedVersion + 1, row.createdAt());
+            if (slot.compareAndSet(row, next)) {
+                TokenVersionChange change = new TokenVersionChange(email, next.tokenVersion(), Instant.now());
+                current.changedVersions.merge(email, change,
+                        (previous, latest) -> previous.tokenVersion() > latest.tokenVersion() ? previous : latest);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public List<EmailRow> findEmailsAfterId(long afterId, int limit) {
+        Tables current = tables;
+        List<EmailRow> rows = new ArrayList<>();
+        long maxId = current.ids.get();
+        for (long id = afterId + 1; id <= maxId && rows.size() < limit; id++) {
+            AtomicReference<Row> slot = current.byId.get(id);
+            if (slot != null) {
+                rows.add(new EmailRow(id, slot.get().email()));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String> findExistingEmails(Collection<String> emails) {
+        Tables current = tables;
+        List<String> existing = new ArrayList<>();
+        for (String email : emails) {
+            if (current.shard(email).containsKey(email)) {
+                existing.add(email);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<TokenVersionChange> findTokenVersionsChangedAfter(Instant since) {
+        List<TokenVersionChange> changes = new ArrayList<>();
+        for (TokenVersionChange change : tables.changedVersions.values()) {
+            if (change.changedAt().isAfter(since)) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicReference<Row>> shard : tables.byEmail) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Удаляет всех пользователей разом; операции, начатые до вызова, завершаются на старых таблицах.
+     */
+    public void clear() {
+        tables = new Tables();
+    }
+}
@@ -0,0 +1,24 @@
+package xyz.deshik91.store;
+
+import xyz.deshik91.model.Invitation;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Хранилище инвайтов. Реализации: {@link JpaInvitationStore} и {@link InMemoryInvitationStore}.
+ */
+public interface InvitationStore {
+
+    Optional<Invitation> findByCode(String code);
+
+    /**
+     * Атомарно занимает инвайт: true, только если этот вызов пометил его использованным
+     * (код есть, не использован, не истек и выдан на этот email или на любой).
+     */
+    boolean claim(String code, String email, Instant now);
+
+    void save(Invitation invitation);
+
+    long count();
+}
@@ -0,0 +1,49 @@
+package xyz.deshik91.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.model.Invitation;
+import xyz.deshik91.repository.InvitationRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Инвайты в БД через {@link InvitationRepository}. Транзакцию задает вызывающий код.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class JpaInvitationStore implements InvitationStore {
+
+    private final InvitationRepository invitationRepository;
+
+    @Override
+    public Optional<Invitation> findByCode(String code) {
+        return invitationRepository.findByCode(code).map(invitation -> new Invitation(invitation.getCode(),
+                invitation.getEmail(), invitation.isUsed(), invitation.getExpiresAt(), invitation.getCreatedAt()));
+    }
+
+    @Override
+    public boolean claim(String code, String email, Instant now) {
+        return invitationRepository.claim(code, email, now) == 1;
+    }
+
+    @Override
+    public void save(Invitation invitation) {
+        InvitationEntity entity = new InvitationEntity();
+        entity.setCode(invitation.getCode());
+        entity.setEmail(invitation.getEmail());
+        entity.setUsed(invitation.isUsed());
+        entity.setExpiresAt(invitation.getExpiresAt());
+        entity.setCreatedAt(invitation.getCreatedAt());
+        invitationRepository.save(entity);
+    }
+
+    @Override
+    public long count() {
+        return invitationRepository.count();
+    }
+}
@@ -0,0 +1,45 @@
+package xyz.deshik91.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.entity.SessionEntity;
+import xyz.deshik91.repository.SessionRepository;
+
+import java.time.Instant;
+
+/**
+ * Сессии в БД через {@link SessionRepository}; истекшие строки удаляет {@link xyz.deshik91.service.DataSweeper}.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class JpaSessionStore implements SessionStore {
+
+    private final SessionRepository sessionRepository;
+
+    @Override
+    public void create(String jti, long userId, String tokenHash, Instant createdAt, Instant expiresAt) {
+        sessionRepository.save(new SessionEntity(jti, userId, tokenHash, createdAt, expiresAt));
+    }
+
+    @Override
+    public boolean rotate(String oldJti, String oldHash, String newJti, String newHash, Instant newExpiresAt) {
+        return sessionRepository.rotate(oldJti, oldHash, newJti, newHash, newExpiresAt) == 1;
+    }
+
+    @Override
+    public boolean exists(String jti, String tokenHash) {
+        return sessionRepository.existsByJtiAndTokenHash(jti, tokenHash);
+    }
+
+    @Override
+    public void delete(String jti, String tokenHash) {
+        sessionRepository.deleteByJtiAndTokenHash(jti, tokenHash);
+    }
+
+    @Override
+    public void deleteAllByUserEmail(String email) {
+        sessionRepository.deleteAllByUserEmail(email);
+    }
+}
@@ -0,0 +1,83 @@
+package xyz.deshik91.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.model.User;
+import xyz.deshik91.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Пользователи в БД через {@link UserRepository}. Транзакцию задает вызывающий код.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class JpaUserStore implements UserStore {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findByEmail(email).map(JpaUserStore::toModel);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return userRepository.existsByEmail(email);
+    }
+
+    @Override
+    public User create(String email, String passwordHash, Instant createdAt) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPasswordHash(passwordHash);
+        user.setCreatedAt(createdAt);
+        return toModel(userRepository.save(user));
+    }
+
+    @Override
+    public void updatePasswordHash(long id, String passwordHash) {
+        userRepository.updatePasswordHash(id, passwordHash);
+    }
+
+    @Override
+    public boolean incrementTokenVersion(String email, int expectedVersion) {
+        return userRepository.incrementTokenVersion(email, expectedVersion, Instant.now()) == 1;
+    }
+
+    @Override
+    public List<EmailRow> findEmailsAfterId(long afterId, int limit) {
+        List<EmailRow> rows = new ArrayList<>();
+        for (Object[] row : userRepository.findEmailsAfterId(afterId, PageRequest.of(0, limit))) {
+            rows.add(new EmailRow(((Number) row[0]).longValue(), (String) row[1]));
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String> findExistingEmails(Collection<String> emails) {
+        return userRepository.findExistingEmails(emails);
+    }
+
+    @Override
+    public List<TokenVersionChange> findTokenVersionsChangedAfter(Instant since) {
+        List<TokenVersionChange> changes = new ArrayList<>();
+        for (Object[] row : userRepository.findTokenVersionsChangedAfter(since)) {
+            changes.add(new TokenVersionChange((String) row[0], ((Number) row[1]).intValue(), (Instant) row[2]));
+        }
+        return changes;
+    }
+
+    private static User toModel(UserEntity user) {
+        return new User(user.getId(), user.getEmail(), user.getPasswordHash(), user.getTokenVersion(),
+                user.getCreatedAt());
+    }
+}
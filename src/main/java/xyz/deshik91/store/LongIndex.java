@@ -0,0 +1,78 @@
+package xyz.deshik91.store;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Индекс по положительному long id без упаковки ключей в Long и без хеш-таблицы:
+ * страницы по 4096 ячеек создаются по мере роста id. Id выдаются подряд, поэтому
+ * память почти точно равна числу записей, а поиск - два чтения из массивов.
+ * Чтение и запись в существующую страницу без блокировок; под монитором только создание страницы.
+ */
+final class LongIndex<V> {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = Integer.MAX_VALUE - 8;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<V>> pages = new AtomicReferenceArray<>(16);
+
+    V get(long id) {
+        AtomicReferenceArray<V> page = existingPage(id);
+        return page != null ? page.get(slot(id)) : null;
+    }
+
+    void put(long id, V value) {
+        page(id).set(slot(id), value);
+    }
+
+    /**
+     * @return текущее значение, если ячейка уже занята, иначе null (значение записано)
+     */
+    V putIfAbsent(long id, V value) {
+        return page(id).compareAndExchange(slot(id), null, value);
+    }
+
+    boolean remove(long id, V expected) {
+        AtomicReferenceArray<V> page = existingPage(id);
+        return page != null && page.compareAndSet(slot(id), expected, null);
+    }
+
+    private AtomicReferenceArray<V> existingPage(long id) {
+        long pageIndex = id >>> PAGE_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<V>> directory = pages;
+        return pageIndex < directory.length() ? directory.get((int) pageIndex) : null;
+    }
+
+    private AtomicReferenceArray<V> page(long id) {
+        AtomicReferenceArray<V> page = existingPage(id);
+        return page != null ? page : createPage(id >>> PAGE_BITS);
+    }
+
+    // Каталог растет и страницы создаются под одним монитором, иначе копия каталога могла бы потерять страницу
+    private synchronized AtomicReferenceArray<V> createPage(long pageIndex) {
+        if (pageIndex >= MAX_PAGES) {
+            throw new IllegalArgumentException("id вне диапазона индекса");
+        }
+        AtomicReferenceArray<AtomicReferenceArray<V>> directory = pages;
+        if (pageIndex >= directory.length()) {
+            int length = (int) Math.min(Math.max(directory.length() * 2L, pageIndex + 1), MAX_PAGES);
+            AtomicReferenceArray<AtomicReferenceArray<V>> grown = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < directory.length(); i++) {
+                grown.set(i, directory.get(i));
+            }
+            pages = grown;
+            directory = grown;
+        }
+        AtomicReferenceArray<V> page = directory.get((int) pageIndex);
+        if (page == null) {
+            page = new AtomicReferenceArray<>(PAGE_SIZE);
+            directory.set((int) pageIndex, page);
+        }
+        return page;
+    }
+
+    private static int slot(long id) {
+        return (int) (id & PAGE_MASK);
+    }
+}
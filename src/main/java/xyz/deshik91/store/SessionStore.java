@@ -0,0 +1,24 @@
+package xyz.deshik91.store;
+
+import java.time.Instant;
+
+/**
+ * Сессии устройств: по одной на выданный refresh токен, ключ - его jti, хранится только SHA-256 токена.
+ * Реализации: {@link JpaSessionStore} и {@link InMemorySessionStore}.
+ */
+public interface SessionStore {
+
+    void create(String jti, long userId, String tokenHash, Instant createdAt, Instant expiresAt);
+
+    /**
+     * Compare-and-swap ротация: сессия переходит на новый токен, только если в ней все еще старый.
+     * Из двух одновременных вызовов с одним токеном true вернет ровно один.
+     */
+    boolean rotate(String oldJti, String oldHash, String newJti, String newHash, Instant newExpiresAt);
+
+    boolean exists(String jti, String tokenHash);
+
+    void delete(String jti, String tokenHash);
+
+    void deleteAllByUserEmail(String email);
+}
@@ -0,0 +1,52 @@
+package xyz.deshik91.store;
+
+import xyz.deshik91.model.User;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище пользователей, от которого зависит {@link xyz.deshik91.service.AuthService}.
+ * Реализации: {@link JpaUserStore} (по умолчанию) и {@link InMemoryUserStore} (профиль memory).
+ */
+public interface UserStore {
+
+    Optional<User> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * @throws org.springframework.dao.DataIntegrityViolationException если email уже занят
+     *         (в JPA - возможно, только при коммите транзакции)
+     */
+    User create(String email, String passwordHash, Instant createdAt);
+
+    void updatePasswordHash(long id, String passwordHash);
+
+    /**
+     * Compare-and-swap версии токенов: false, если версия уже не равна expectedVersion.
+     * Вместе с версией запоминается время изменения.
+     */
+    boolean incrementTokenVersion(String email, int expectedVersion);
+
+    /**
+     * Keyset-страница пользователей с id больше afterId по возрастанию id - для сверки индекса email
+     * порциями, без выборки всей таблицы.
+     */
+    List<EmailRow> findEmailsAfterId(long afterId, int limit);
+
+    List<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Версии токенов, изменившиеся позже since (см. {@link #incrementTokenVersion}).
+     */
+    List<TokenVersionChange> findTokenVersionsChangedAfter(Instant since);
+
+    record EmailRow(long id, String email) {
+    }
+
+    record TokenVersionChange(String email, int tokenVersion, Instant changedAt) {
+    }
+}
@@ -0,0 +1,20 @@
+-- Вариант для H2 (тесты), bigserial записан как identity. Основная версия и пояснения - db/migration/postgresql/V1__baseline_schema.sql
+
+create table users (
+    created_at timestamp(6) with time zone not null,
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    password_hash varchar(255) not null,
+    refresh_token varchar(255),
+    primary key (id)
+);
+
+create table invitations (
+    used boolean not null,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    id bigint generated by default as identity,
+    code varchar(255) not null unique,
+    email varchar(255),
+    primary key (id)
+);
@@ -0,0 +1,42 @@
+-- Вариант для H2 (тесты). Основная версия и пояснения - db/migration/postgresql/V2__sessions_and_token_versions.sql.
+-- Тестовые базы всегда новые и пустые, поэтому сдвигать последовательности за существующие id не нужно
+
+alter table users alter column id drop identity;
+alter table invitations alter column id drop identity;
+create sequence users_seq start with 1 increment by 50;
+create sequence invitations_seq start with 1 increment by 50;
+
+alter table users drop column refresh_token;
+alter table users add column token_version integer default 0 not null;
+
+create table sessions (
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    user_id bigint not null,
+    jti varchar(36) not null,
+    token_hash varchar(64) not null,
+    primary key (jti)
+);
+
+create table revoked_tokens (
+    expires_at timestamp(6) with time zone not null,
+    revoked_at timestamp(6) with time zone not null,
+    jti varchar(36) not null,
+    primary key (jti)
+);
+
+create table scheduler_locks (
+    locked_until timestamp(6) with time zone not null,
+    name varchar(64) not null,
+    owner varchar(128) not null,
+    primary key (name)
+);
+
+create index idx_invitations_expires_at on invitations (expires_at);
+create index idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
+create index idx_revoked_tokens_revoked_at on revoked_tokens (revoked_at);
+create index idx_sessions_user_id on sessions (user_id);
+create index idx_sessions_expires_at on sessions (expires_at);
+
+alter table sessions add constraint FKruie73rneumyyd1bgo6qw8vjt
+    foreign key (user_id) references users on delete cascade;
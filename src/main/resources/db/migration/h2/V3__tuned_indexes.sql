@@ -0,0 +1,4 @@
+-- Вариант для H2 (тесты): H2 не поддерживает индексы по выражению, частичные индексы и INCLUDE,
+-- поэтому здесь только их ближайшие аналоги. Основная версия - db/migration/postgresql/V3__tuned_indexes.sql
+create index idx_users_changed_token_version on users (token_version, email);
+create index idx_invitations_used_created_at on invitations (used, created_at);
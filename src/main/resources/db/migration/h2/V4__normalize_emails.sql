@@ -0,0 +1,3 @@
+-- Та же миграция, что и db/migration/postgresql/V4__normalize_emails.sql
+update users set email = lower(email) where email <> lower(email);
+update invitations set email = lower(email) where email <> lower(email);
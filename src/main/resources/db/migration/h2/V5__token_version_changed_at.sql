@@ -0,0 +1,5 @@
+-- Вариант для H2 (тесты) без частичного индекса. Основная версия - db/migration/postgresql/V5__token_version_changed_at.sql
+alter table users add column token_version_changed_at timestamp(6) with time zone;
+update users set token_version_changed_at = current_timestamp where token_version > 0;
+create index idx_users_token_version_changed_at on users (token_version_changed_at);
+drop index if exists idx_users_changed_token_version;
@@ -0,0 +1,22 @@
+-- Исходная схема, которую создавал spring.jpa.hibernate.ddl-auto=update до перехода на Flyway:
+-- только пользователи с bigserial id и единственным refresh_token, и инвайты.
+-- Существующие базы принимаются за эту версию (spring.flyway.baseline-version=1) и получают V2+
+
+create table users (
+    created_at timestamp(6) with time zone not null,
+    id bigserial not null,
+    email varchar(255) not null unique,
+    password_hash varchar(255) not null,
+    refresh_token varchar(255),
+    primary key (id)
+);
+
+create table invitations (
+    used boolean not null,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    id bigserial not null,
+    code varchar(255) not null unique,
+    email varchar(255),
+    primary key (id)
+);
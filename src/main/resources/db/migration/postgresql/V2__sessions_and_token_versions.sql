@@ -0,0 +1,56 @@
+-- Все, что появилось в схеме после исходной: последовательности вместо bigserial, сессии устройств,
+-- версии токенов, отозванные токены и аренды фоновых задач.
+-- "if not exists" - для баз, созданных ddl-auto=update промежуточными сборками, где часть этого уже есть
+
+-- bigserial -> последовательности с шагом 50: pooled-оптимизатор Hibernate выдает id блоками,
+-- и вставки идут пачками. Последовательности сдвигаются за максимальный id: пул выдает значения (n - 50, n]
+alter table users alter column id drop default;
+alter table invitations alter column id drop default;
+drop sequence if exists users_id_seq;
+drop sequence if exists invitations_id_seq;
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists invitations_seq start with 1 increment by 50;
+select setval('users_seq', (select max(id) from users) + 50, false)
+where exists (select 1 from users);
+select setval('invitations_seq', (select max(id) from invitations) + 50, false)
+where exists (select 1 from invitations);
+
+-- Единственный refresh_token в строке пользователя заменен таблицей сессий (по одной на устройство);
+-- выданные по старой схеме refresh токены больше не принимаются
+alter table users drop column if exists refresh_token;
+
+-- Версия токенов (claim "ver"): увеличение отзывает сразу все выданные пользователю токены
+alter table users add column if not exists token_version integer default 0 not null;
+
+create table if not exists sessions (
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    user_id bigint not null,
+    jti varchar(36) not null,
+    token_hash varchar(64) not null,
+    primary key (jti)
+);
+
+create table if not exists revoked_tokens (
+    expires_at timestamp(6) with time zone not null,
+    revoked_at timestamp(6) with time zone not null,
+    jti varchar(36) not null,
+    primary key (jti)
+);
+
+create table if not exists scheduler_locks (
+    locked_until timestamp(6) with time zone not null,
+    name varchar(64) not null,
+    owner varchar(128) not null,
+    primary key (name)
+);
+
+create index if not exists idx_invitations_expires_at on invitations (expires_at);
+create index if not exists idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
+create index if not exists idx_revoked_tokens_revoked_at on revoked_tokens (revoked_at);
+create index if not exists idx_sessions_user_id on sessions (user_id);
+create index if not exists idx_sessions_expires_at on sessions (expires_at);
+
+alter table sessions drop constraint if exists FKruie73rneumyyd1bgo6qw8vjt;
+alter table sessions add constraint FKruie73rneumyyd1bgo6qw8vjt
+    foreign key (user_id) references users on delete cascade;
@@ -0,0 +1,33 @@
+-- Email уникален без учета регистра: Foo@example.com и foo@example.com - один пользователь.
+-- Если в базе уже есть такие пары, миграция остановится на создании индекса - их нужно разобрать вручную.
+-- Обычное unique-ограничение на email становится лишним: уникальность lower(email) строже
+do $$
+declare
+    constraint_name text;
+begin
+    for constraint_name in
+        select c.conname
+        from pg_constraint c
+                 join pg_attribute a on a.attrelid = c.conrelid and a.attnum = any (c.conkey)
+        where c.conrelid = 'users'::regclass
+          and c.contype = 'u'
+          and array_length(c.conkey, 1) = 1
+          and a.attname = 'email'
+    loop
+        execute format('alter table users drop constraint %I', constraint_name);
+    end loop;
+end $$;
+
+create unique index ux_users_email_lower on users (lower(email));
+
+-- Точный поиск по email: existsByEmail (select id ... where email = ?) и findExistingEmails
+-- обслуживаются index-only scan без чтения строк таблицы
+create index idx_users_email_covering on users (email) include (id);
+
+-- Версии токенов опрашиваются каждым узлом раз в несколько секунд (findChangedTokenVersions);
+-- почти у всех пользователей версия 0, поэтому индекс крошечный и читается целиком без таблицы
+create index idx_users_changed_token_version on users (email, token_version) where token_version > 0;
+
+-- Фоновая очистка удаляет давно использованные инвайты (used and created_at < ?);
+-- неиспользованных в этом индексе нет, он растет только за счет использованных
+create index idx_invitations_used_created_at on invitations (created_at) where used;
@@ -0,0 +1,7 @@
+-- Приложение хранит и сравнивает email только в нижнем регистре (User.normalizeEmail).
+-- Приводим к этой форме строки, записанные раньше. Конфликтов быть не может:
+-- V3 уже гарантирует уникальность lower(email)
+update users set email = lower(email) where email <> lower(email);
+
+-- Инвайт, выданный на email в исходном регистре, иначе нельзя было бы занять
+update invitations set email = lower(email) where email <> lower(email);
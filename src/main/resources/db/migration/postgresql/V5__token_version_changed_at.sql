@@ -0,0 +1,13 @@
+-- Когда версия токенов пользователя менялась в последний раз: узлы подтягивают только изменения
+-- после своей прошлой синхронизации, а не все ненулевые версии каждые несколько секунд
+alter table users add column token_version_changed_at timestamp(6) with time zone;
+
+-- Уже выходившие со всех устройств пользователи остаются в кешах узлов еще один срок жизни токенов
+update users set token_version_changed_at = now() where token_version > 0;
+
+-- Индекс только по менявшимся версиям: у остальных пользователей колонка пустая
+create index idx_users_token_version_changed_at on users (token_version_changed_at)
+    where token_version_changed_at is not null;
+
+-- Полная выборка ненулевых версий больше не выполняется
+drop index if exists idx_users_changed_token_version;
@@ -0,0 +1,33 @@
+package xyz.deshik91.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import xyz.deshik91.repository.UserRepository;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+public class VirtualThreadModeTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void whenVirtualThreadsEnabled_thenDatabaseConcurrencyIsCappedByPoolSize() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+        ConnectionLimitingDataSource limited = (ConnectionLimitingDataSource) dataSource;
+        assertThat(limited.unwrap(HikariDataSource.class)).isNotNull();
+        assertThat(limited.availablePermits()).isEqualTo(10);
+
+        // Разрешения возвращаются после каждого запроса
+        userRepository.count();
+        assertThat(limited.availablePermits()).isEqualTo(10);
+    }
+}
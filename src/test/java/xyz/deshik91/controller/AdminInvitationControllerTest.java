@@ -0,0 +1,108 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import xyz.deshik91.dto.request.GenerateInvitationsRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.security.AdminApiKeyFilter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Маленькая пачка, чтобы генерация прошла несколько пачек
+@SpringBootTest(properties = "auth.invitations.batch-size=2")
+@AutoConfigureMockMvc
+public class AdminInvitationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем БД
+        userRepository.deleteAll();
+        invitationRepository.deleteAll();
+    }
+
+    @Test
+    void whenGenerateCount_thenUniqueCodesStreamedAndStored() throws Exception {
+        GenerateInvitationsRequest request = new GenerateInvitationsRequest();
+        request.setCount(5);
+
+        List<String> lines = generate(request);
+
+        assertThat(lines.get(0)).isEqualTo("code,email,expires_at");
+        List<String> codes = lines.subList(1, lines.size()).stream()
+                .map(line -> line.split(",", -1)[0])
+                .toList();
+        assertThat(codes).hasSize(5).doesNotHaveDuplicates();
+        assertThat(invitationRepository.count()).isEqualTo(5);
+        assertThat(invitationRepository.findByCode(codes.get(4))).get()
+                .extracting(InvitationEntity::getEmail).isNull();
+    }
+
+    @Test
+    void whenGenerateForEmails_thenCodesAreBoundToEmails() throws Exception {
+        GenerateInvitationsRequest request = new GenerateInvitationsRequest();
+        request.setEmails(List.of("a@example.com", "b@example.com", "c@example.com"));
+
+        List<String> lines = generate(request);
+
+        assertThat(lines).hasSize(4);
+        String[] second = lines.get(2).split(",", -1);
+        assertThat(second[1]).isEqualTo("b@example.com");
+
+        // Код работает только для своего email
+        RegisterRequest register = new RegisterRequest();
+        register.setEmail("b@example.com");
+        register.setPassword("password123");
+        register.setInvitationCode(second[0]);
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(register)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenNeitherCountNorEmails_thenReturnsError() throws Exception {
+        mockMvc.perform(post("/api/admin/invitations/generate")
+                        .header(AdminApiKeyFilter.HEADER, "test-admin-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Укажите либо count, либо список emails"));
+    }
+
+    private List<String> generate(GenerateInvitationsRequest request) throws Exception {
+        String csv = mockMvc.perform(post("/api/admin/invitations/generate")
+                        .header(AdminApiKeyFilter.HEADER, "test-admin-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Arrays.stream(csv.split("\n")).filter(line -> !line.isBlank()).toList();
+    }
+}
@@ -0,0 +1,201 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.response.ImportProgress;
+import xyz.deshik91.dto.response.UserExportRow;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.security.AdminApiKeyFilter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Маленькие пачки и страницы, чтобы несколько строк прошли несколько пачек/страниц
+@SpringBootTest(properties = {"auth.import.batch-size=2", "auth.export.page-size=2"})
+@AutoConfigureMockMvc
+public class AdminUserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем БД
+        userRepository.deleteAll();
+        invitationRepository.deleteAll();
+    }
+
+    @Test
+    void whenImportNdjson_thenUsersCanLogIn() throws Exception {
+        String hash = passwordEncoder.encode("password123");
+        String body = String.join("\n",
+                "{\"email\":\"one@example.com\",\"passwordHash\":\"" + hash + "\"}",
+                "{\"email\":\"two@example.com\",\"passwordHash\":\"" + hash + "\",\"createdAt\":\"2020-01-01T00:00:00Z\"}",
+                "{\"email\":\"one@example.com\",\"passwordHash\":\"" + hash + "\"}",  // повтор
+                "{\"email\":\"three@example.com\",\"passwordHash\":\"plain-text\"}",  // не хеш
+                "не json",
+                "{\"email\":\"four@example.com\",\"passwordHash\":\"" + hash + "\"}");
+
+        List<ImportProgress> progress = importUsers(body, AdminUserController.NDJSON);
+
+        // По строке после каждой полной пачки и итоговая
+        assertThat(progress).hasSizeGreaterThan(1);
+        ImportProgress result = progress.get(progress.size() - 1);
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getProcessed()).isEqualTo(6);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getInvalid()).isEqualTo(2);
+        assertThat(userRepository.count()).isEqualTo(3);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("two@example.com");
+        loginRequest.setPassword("password123");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").exists());
+    }
+
+    @Test
+    void whenImportCsv_thenExistingEmailsAreSkipped() throws Exception {
+        String hash = passwordEncoder.encode("password123");
+        importUsers("email,password_hash\nexisting@example.com," + hash + "\n", AdminUserController.CSV);
+
+        String body = "email,password_hash,created_at\n"
+                + "existing@example.com," + hash + ",\n"
+                + "csv1@example.com," + hash + ",2021-06-01T12:00:00Z\n"
+                + "csv2@example.com," + hash + "\n";
+
+        List<ImportProgress> progress = importUsers(body, AdminUserController.CSV);
+
+        ImportProgress result = progress.get(progress.size() - 1);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getInvalid()).isZero();
+        assertThat(userRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void whenEmailTakenBetweenCheckAndInsert_thenOnlyThatRowIsSkipped() throws Exception {
+        String hash = passwordEncoder.encode("password123");
+        importUsers("email,password_hash\ntaken@example.com," + hash + "\n", AdminUserController.CSV);
+
+        // Проверка пачки не видит занятый email - как при регистрации, закоммиченной сразу после проверки
+        doReturn(List.of()).when(userRepository).findExistingEmails(anyCollection());
+
+        String body = "email,password_hash\n"
+                + "Taken@Example.com," + hash + "\n"
+                + "fresh1@example.com," + hash + "\n"
+                + "fresh2@example.com," + hash + "\n";
+
+        List<ImportProgress> progress = importUsers(body, AdminUserController.CSV);
+
+        ImportProgress result = progress.get(progress.size() - 1);
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getProcessed()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(3);
+        assertThat(userRepository.findByEmail("fresh1@example.com")).isPresent();
+    }
+
+    @Test
+    void whenAdminKeyMissingOrWrong_thenForbidden() throws Exception {
+        mockMvc.perform(post("/api/admin/users/import")
+                        .contentType(AdminUserController.NDJSON)
+                        .content(""))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/admin/users/import")
+                        .header(AdminApiKeyFilter.HEADER, "wrong-key")
+                        .contentType(AdminUserController.NDJSON)
+                        .content(""))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void whenExport_thenAllUsersStreamedInIdOrder() throws Exception {
+        String hash = passwordEncoder.encode("password123");
+        StringBuilder body = new StringBuilder("email,password_hash\n");
+        for (int i = 0; i < 5; i++) {
+            body.append("export").append(i).append("@example.com,").append(hash).append('\n');
+        }
+        importUsers(body.toString(), AdminUserController.CSV);
+
+        List<UserExportRow> all = exportUsers(0);
+        assertThat(all).extracting(UserExportRow::getEmail).containsExactlyInAnyOrder(
+                "export0@example.com", "export1@example.com", "export2@example.com",
+                "export3@example.com", "export4@example.com");
+        assertThat(all).extracting(UserExportRow::getId).isSorted();
+
+        // Продолжение выгрузки после уже полученного id
+        List<UserExportRow> rest = exportUsers(all.get(1).getId());
+        assertThat(rest).isEqualTo(all.subList(2, all.size()));
+    }
+
+    private List<UserExportRow> exportUsers(long afterId) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/users/export")
+                        .header(AdminApiKeyFilter.HEADER, "test-admin-key")
+                        .param("afterId", String.valueOf(afterId)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return readLines(result.getResponse().getContentAsString(), UserExportRow.class);
+    }
+
+    private List<ImportProgress> importUsers(String body, String contentType) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/admin/users/import")
+                        .header(AdminApiKeyFilter.HEADER, "test-admin-key")
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return readLines(result.getResponse().getContentAsString(), ImportProgress.class);
+    }
+
+    private <T> List<T> readLines(String ndjson, Class<T> type) {
+        return Arrays.stream(ndjson.split("\n"))
+                .filter(line -> !line.isBlank())
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, type);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+}
@@ -7,17 +7,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import xyz.deshik91.dto.request.LoginRequest;
 import xyz.deshik91.dto.request.RegisterRequest;
 import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.entity.UserEntity;
 import xyz.deshik91.repository.InvitationRepository;
 import xyz.deshik91.repository.UserRepository;
 
 import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -120,4 +123,32 @@ public class AuthControllerLoginTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Неверный email или пароль"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenLoginWithLegacyHash_thenHashIsUpgradedTransparently() throws Exception {
+        // Старый хеш: без префикса алгоритма и с заниженной стоимостью
+        UserEntity legacy = new UserEntity();
+        legacy.setEmail("legacy@example.com");
+        legacy.setPasswordHash(new BCryptPasswordEncoder(4).encode("password123"));
+        legacy.setCreatedAt(Instant.now());
+        userRepository.save(legacy);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("legacy@example.com");
+        loginRequest.setPassword("password123");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        String upgradedHash = userRepository.findByEmail("legacy@example.com").orElseThrow().getPasswordHash();
+        assertTrue(upgradedHash.startsWith("{bcrypt}$2a$10$"), upgradedHash);
+
+        // После перехеширования пароль по-прежнему подходит
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,80 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import xyz.deshik91.dto.request.LoginRequest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "auth.login-throttle.enabled=true",
+        "auth.login-throttle.email.burst=3",
+        "auth.login-throttle.email.per-minute=1",
+        "auth.login-throttle.ip.enabled=true",
+        "auth.login-throttle.ip.burst=5",
+        "auth.login-throttle.ip.per-minute=1"
+})
+@AutoConfigureMockMvc
+public class AuthControllerLoginThrottleTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void whenTooManyAttemptsForEmail_thenReturns429() throws Exception {
+        // Разные адреса, один email - срабатывает лимит по email
+        for (int i = 0; i < 3; i++) {
+            login("victim@example.com", "10.0.0." + i)
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Неверный email или пароль"));
+        }
+
+        login("VICTIM@example.com", "10.0.0.100")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value("Слишком много попыток входа, повторите позже"));
+
+        // Другой email не затронут
+        login("someone@example.com", "10.0.0.101")
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenTooManyAttemptsFromIp_thenReturns429() throws Exception {
+        // Один адрес, разные email - срабатывает лимит по IP
+        for (int i = 0; i < 5; i++) {
+            login("stuffing" + i + "@example.com", "192.168.1.1")
+                    .andExpect(status().isBadRequest());
+        }
+
+        login("stuffing-next@example.com", "192.168.1.1")
+                .andExpect(status().isTooManyRequests());
+
+        login("stuffing-next@example.com", "192.168.1.2")
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions login(String email, String clientIp) throws Exception {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword("wrong-password");
+
+        return mockMvc.perform(post("/api/auth/login")
+                .with(httpRequest -> {
+                    httpRequest.setRemoteAddr(clientIp);
+                    return httpRequest;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+}
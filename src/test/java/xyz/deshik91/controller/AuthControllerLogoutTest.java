@@ -0,0 +1,210 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import xyz.deshik91.dto.request.BatchValidateRequest;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.LogoutRequest;
+import xyz.deshik91.dto.request.RefreshTokenRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.request.RevokeTokenRequest;
+import xyz.deshik91.dto.response.AuthResponse;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.RevokedTokenRepository;
+import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.security.JwtUtil;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthControllerLogoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String accessToken;
+    private String refreshToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Очищаем БД
+        userRepository.deleteAll();
+        invitationRepository.deleteAll();
+
+        // Создаем тестовый инвайт
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("WELCOME2024");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(30 * 24 * 60 * 60));
+        invitation.setCreatedAt(Instant.now());
+        invitationRepository.save(invitation);
+
+        // Регистрируем пользователя
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail("logout@example.com");
+        registerRequest.setPassword("password123");
+        registerRequest.setInvitationCode("WELCOME2024");
+
+        MvcResult registerResult = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        AuthResponse authResponse = objectMapper.readValue(
+                registerResult.getResponse().getContentAsString(),
+                AuthResponse.class
+        );
+        accessToken = authResponse.getAccessToken();
+        refreshToken = authResponse.getRefreshToken();
+    }
+
+    @Test
+    void whenLogout_thenSessionEndsAndAccessTokenIsRevoked() throws Exception {
+        // Токен уже проверен и лежит в кеше - отзыв должен сработать и в этом случае
+        mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        LogoutRequest logoutRequest = new LogoutRequest();
+        logoutRequest.setRefreshToken(refreshToken);
+        logoutRequest.setAccessToken(accessToken);
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutRequest)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.valid").value(false));
+
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken(refreshToken);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isBadRequest());
+
+        // Отзыв сохранен в БД для других узлов и рестарта
+        assertThat(revokedTokenRepository.existsById(jwtUtil.parseToken(accessToken).jti())).isTrue();
+    }
+
+    @Test
+    void whenTokenRevoked_thenOnlyThatTokenBecomesInvalid() throws Exception {
+        String otherAccessToken = jwtUtil.generateAccessToken("logout@example.com");
+
+        RevokeTokenRequest revokeRequest = new RevokeTokenRequest();
+        revokeRequest.setToken(accessToken);
+
+        mockMvc.perform(post("/api/auth/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(revokeRequest)))
+                .andExpect(status().isNoContent());
+
+        BatchValidateRequest batchRequest = new BatchValidateRequest();
+        batchRequest.setTokens(List.of(accessToken, otherAccessToken));
+
+        mockMvc.perform(post("/api/auth/validate/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].valid").value(false))
+                .andExpect(jsonPath("$[1].valid").value(true));
+    }
+
+    @Test
+    void whenLogoutWithForeignAccessToken_thenReturnsError() throws Exception {
+        LogoutRequest logoutRequest = new LogoutRequest();
+        logoutRequest.setRefreshToken(refreshToken);
+        logoutRequest.setAccessToken(jwtUtil.generateAccessToken("someone-else@example.com"));
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Access токен не принадлежит этой сессии"));
+    }
+
+    @Test
+    void whenLogoutAll_thenTokensOfEveryDeviceAreInvalid() throws Exception {
+        AuthResponse secondDevice = login();
+
+        RefreshTokenRequest logoutAllRequest = new RefreshTokenRequest();
+        logoutAllRequest.setRefreshToken(refreshToken);
+
+        mockMvc.perform(post("/api/auth/logout-all")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutAllRequest)))
+                .andExpect(status().isNoContent());
+
+        // Ни один ранее выданный токен больше не проходит проверку
+        for (String token : List.of(accessToken, secondDevice.getAccessToken())) {
+            mockMvc.perform(get("/api/auth/validate")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken(secondDevice.getRefreshToken());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isBadRequest());
+
+        // Новый вход выдает токены с новой версией
+        AuthResponse afterLogout = login();
+        assertThat(jwtUtil.parseToken(afterLogout.getAccessToken()).tokenVersion()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + afterLogout.getAccessToken()))
+                .andExpect(status().isOk());
+    }
+
+    private AuthResponse login() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("logout@example.com");
+        loginRequest.setPassword("password123");
+
+        MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readValue(loginResult.getResponse().getContentAsString(), AuthResponse.class);
+    }
+}
@@ -0,0 +1,205 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.RefreshTokenRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.dto.response.AuthResponse;
+import xyz.deshik91.model.Invitation;
+import xyz.deshik91.store.InMemoryUserStore;
+import xyz.deshik91.store.InvitationStore;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Полный цикл аутентификации на хранилищах в памяти (профиль memory) - без DataSource и JPA.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+public class AuthControllerMemoryProfileTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvitationStore invitationStore;
+
+    @Autowired
+    private InMemoryUserStore userStore;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void whenMemoryProfile_thenNoDataSourceIsCreated() {
+        assertThat(applicationContext.getBeanNamesForType(DataSource.class)).isEmpty();
+    }
+
+    @Test
+    void whenMemoryProfile_thenFullSessionLifecycleWorks() throws Exception {
+        String email = "memory-" + UUID.randomUUID() + "@example.com";
+        String code = newInvitation();
+        AuthResponse registered = register(email, code);
+
+        // Повторное использование инвайта отклоняется
+        RegisterRequest again = new RegisterRequest();
+        again.setEmail("other-" + email);
+        again.setPassword("password123");
+        again.setInvitationCode(code);
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(again)))
+                .andExpect(status().isBadRequest());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword("password123");
+        MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        AuthResponse login = objectMapper.readValue(loginResult.getResponse().getContentAsString(), AuthResponse.class);
+
+        // Ротация: новый refresh токен работает, старый - уже нет
+        AuthResponse refreshed = refresh(login.getRefreshToken(), 200);
+        refresh(login.getRefreshToken(), 400);
+
+        RefreshTokenRequest logoutAllRequest = new RefreshTokenRequest();
+        logoutAllRequest.setRefreshToken(refreshed.getRefreshToken());
+        mockMvc.perform(post("/api/auth/logout-all")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutAllRequest)))
+                .andExpect(status().isNoContent());
+
+        // Все выданные токены пользователя отозваны
+        for (String token : List.of(registered.getAccessToken(), refreshed.getAccessToken())) {
+            mockMvc.perform(get("/api/auth/validate")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isUnauthorized());
+        }
+        refresh(registered.getRefreshToken(), 400);
+    }
+
+    @Test
+    void whenEmailDiffersOnlyInCase_thenSecondRegistrationIsRejected() throws Exception {
+        String local = "case-" + UUID.randomUUID();
+        register(local.toUpperCase() + "@Example.com", newInvitation());
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + local + "@example.com\",\"password\":\"password123\","
+                                + "\"invitationCode\":\"" + newInvitation() + "\"}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(userStore.findByEmail(local + "@example.com")).isPresent();
+    }
+
+    @Test
+    void whenSameEmailRegisteredConcurrently_thenLoserInvitationStaysUnused() throws Exception {
+        String email = "race-" + UUID.randomUUID() + "@example.com";
+        int threads = 8;
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            codes.add(newInvitation());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (String code : codes) {
+                RegisterRequest request = new RegisterRequest();
+                request.setEmail(email);
+                request.setPassword("password123");
+                request.setInvitationCode(code);
+                String body = objectMapper.writeValueAsString(request);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/auth/register")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                if (result.get(30, TimeUnit.SECONDS) == 200) {
+                    succeeded++;
+                }
+            }
+
+            // Проигравшие откатывают занятый инвайт через журнал отмены
+            long used = codes.stream()
+                    .filter(code -> invitationStore.findByCode(code).orElseThrow().isUsed())
+                    .count();
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(used).isEqualTo(1);
+            assertThat(userStore.findByEmail(email)).isPresent();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String newInvitation() {
+        String code = "MEM-" + UUID.randomUUID();
+        invitationStore.save(new Invitation(code, null, false,
+                Instant.now().plusSeconds(24 * 60 * 60), Instant.now()));
+        return code;
+    }
+
+    private AuthResponse register(String email, String code) throws Exception {
+        // JSON вручную, чтобы email дошел до сервера в исходном регистре
+        String body = "{\"email\":\"" + email + "\",\"password\":\"password123\",\"invitationCode\":\"" + code + "\"}";
+
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class);
+    }
+
+    private AuthResponse refresh(String refreshToken, int expectedStatus) throws Exception {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(refreshToken);
+
+        MvcResult result = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+        return expectedStatus == 200
+                ? objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class)
+                : null;
+    }
+}
@@ -0,0 +1,132 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.service.AuthService;
+import xyz.deshik91.service.PasswordHasher;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "auth.hashing.threads=1",
+        "auth.hashing.queue-capacity=1",
+        "auth.hashing.retry-after-seconds=2"
+})
+@AutoConfigureMockMvc
+public class AuthControllerOverloadTest {
+
+    // Пока защелка закрыта, проверка пароля "висит" и занимает поток хеширования
+    static volatile CountDownLatch release = new CountDownLatch(0);
+
+    @TestConfiguration
+    static class BlockingPasswordEncoderConfig {
+
+        @Bean
+        @Primary
+        PasswordEncoder blockingPasswordEncoder() {
+            PasswordEncoder delegate = new BCryptPasswordEncoder(4);
+            return new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    return delegate.encode(rawPassword);
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return delegate.matches(rawPassword, encodedPassword);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private ExecutorService background;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+
+        UserEntity user = new UserEntity();
+        user.setEmail("storm@example.com");
+        user.setPasswordHash(new BCryptPasswordEncoder(4).encode("password123"));
+        user.setCreatedAt(Instant.now());
+        userRepository.save(user);
+
+        background = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        background.shutdown();
+        background.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void whenHashingQueueIsFull_thenReturns503WithRetryAfter() throws Exception {
+        release = new CountDownLatch(1);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("storm@example.com");
+        loginRequest.setPassword("password123");
+
+        // Первый логин занимает единственный поток, второй - единственное место в очереди
+        background.submit(() -> authService.login(loginRequest));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (passwordHasher.queueSize() == 0 && System.currentTimeMillis() < deadline) {
+            background.submit(() -> authService.login(loginRequest));
+            Thread.sleep(50);
+        }
+        assertThat(passwordHasher.queueSize()).isEqualTo(1);
+
+        // Третий получает отказ сразу, не дожидаясь BCrypt
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+}
@@ -13,13 +13,22 @@ import xyz.deshik91.dto.request.LoginRequest;
 import xyz.deshik91.dto.request.RefreshTokenRequest;
 import xyz.deshik91.dto.request.RegisterRequest;
 import xyz.deshik91.dto.response.AuthResponse;
-import xyz.deshik91.repository.InMemoryUserStore;
 import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.SessionRepository;
 import xyz.deshik91.repository.UserRepository;
 import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.entity.SessionEntity;
 import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.security.JwtUtil;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,15 +43,18 @@ public class AuthControllerRefreshTest {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Autowired
-    private InMemoryUserStore userStore;
-
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private InvitationRepository invitationRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
     private String refreshToken;
 
     @BeforeEach
@@ -143,11 +155,11 @@ public class AuthControllerRefreshTest {
     }
 
     @Test
-    void whenLoginWithValidCredentials_thenRefreshTokenIsUpdated() throws Exception {
-        // Сохраняем старый токен
-        String oldRefreshToken = refreshToken;
+    void whenLoginOnAnotherDevice_thenBothSessionsStayValid() throws Exception {
+        // Токен первого устройства (из регистрации)
+        String firstDeviceToken = refreshToken;
 
-        // Логинимся
+        // Логинимся со второго устройства
         LoginRequest loginRequest = new LoginRequest();
         loginRequest.setEmail("refresh@example.com");
         loginRequest.setPassword("password123");
@@ -158,32 +170,79 @@ public class AuthControllerRefreshTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        // Получаем новый refresh токен после логина
         AuthResponse loginResponse = objectMapper.readValue(
                 loginResult.getResponse().getContentAsString(),
                 AuthResponse.class
         );
-        String newRefreshToken = loginResponse.getRefreshToken();
+        String secondDeviceToken = loginResponse.getRefreshToken();
 
         // Проверяем что токены разные
-        org.assertj.core.api.Assertions.assertThat(newRefreshToken).isNotEqualTo(oldRefreshToken);
+        org.assertj.core.api.Assertions.assertThat(secondDeviceToken).isNotEqualTo(firstDeviceToken);
 
-        // Старый токен (из регистрации) должен стать недействительным
-        RefreshTokenRequest oldRequest = new RefreshTokenRequest();
-        oldRequest.setRefreshToken(oldRefreshToken);
+        // Логин на втором устройстве не разлогинивает первое
+        RefreshTokenRequest firstRequest = new RefreshTokenRequest();
+        firstRequest.setRefreshToken(firstDeviceToken);
 
         mockMvc.perform(post("/api/auth/refresh")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(oldRequest)))
-                .andExpect(status().isBadRequest());
+                        .content(objectMapper.writeValueAsString(firstRequest)))
+                .andExpect(status().isOk());
 
-        // А новый должен работать
-        RefreshTokenRequest newRequest = new RefreshTokenRequest();
-        newRequest.setRefreshToken(newRefreshToken);
+        // И второе устройство тоже работает
+        RefreshTokenRequest secondRequest = new RefreshTokenRequest();
+        secondRequest.setRefreshToken(secondDeviceToken);
 
         mockMvc.perform(post("/api/auth/refresh")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(newRequest)))
+                        .content(objectMapper.writeValueAsString(secondRequest)))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenSessionStored_thenOnlyTokenHashIsPersisted() throws Exception {
+        String jti = jwtUtil.parseToken(refreshToken).jti();
+
+        SessionEntity session = sessionRepository.findById(jti).orElseThrow();
+
+        org.assertj.core.api.Assertions.assertThat(session.getTokenHash())
+                .hasSize(64)
+                .isNotEqualTo(refreshToken);
+    }
+
+    @Test
+    void whenSameRefreshTokenUsedConcurrently_thenExactlyOneSucceeds() throws Exception {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(refreshToken);
+        String body = objectMapper.writeValueAsString(request);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/auth/refresh")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                if (result.get(30, TimeUnit.SECONDS) == 200) {
+                    succeeded++;
+                }
+            }
+
+            // Ротация - один conditional UPDATE, поэтому выигрывает ровно один запрос
+            org.assertj.core.api.Assertions.assertThat(succeeded).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(sessionRepository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "auth.server-timing.enabled=true",
+        "auth.server-timing.sample-rate=1"
+})
+@AutoConfigureMockMvc
+public class AuthControllerServerTimingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Test
+    void whenLoginFails_thenServerTimingShowsHashAndDbStages() throws Exception {
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("TIMING2024");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(3600));
+        invitation.setCreatedAt(Instant.now());
+        invitationRepository.save(invitation);
+
+        RegisterRequest register = new RegisterRequest();
+        register.setEmail("timing@example.com");
+        register.setPassword("password123");
+        register.setInvitationCode("TIMING2024");
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(register)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("jwt;dur=")));
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail("timing@example.com");
+        login.setPassword("wrong-password");
+        String serverTiming = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Неверный email или пароль"))
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        // Ответ с ошибкой тоже получает заголовок: один SELECT пользователя и проверка пароля
+        assertThat(serverTiming)
+                .matches("hash;dur=\\d+\\.\\d{3}, jwt;dur=0\\.000, db;dur=\\d+\\.\\d{3}, sql;desc=\"1\", "
+                        + "alloc;desc=\"\\d+\", total;dur=\\d+\\.\\d{3}");
+    }
+
+    @Test
+    void whenNotAuthEndpoint_thenNoServerTiming() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+}
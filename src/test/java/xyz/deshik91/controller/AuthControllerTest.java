@@ -14,7 +14,15 @@ import xyz.deshik91.repository.InvitationRepository;
 import xyz.deshik91.repository.UserRepository;
 
 import java.time.Instant;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -91,6 +99,29 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.message").value("Email уже зарегистрирован"));
     }
 
+    @Test
+    public void whenEmailDiffersOnlyInCase_thenItIsTheSameUser() throws Exception {
+        // JSON вручную: запрос должен дойти до сервера в исходном регистре
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(registerJson("Mixed.Case@Example.com", "WELCOME2024")))
+                .andExpect(status().isOk());
+
+        assertThat(userRepository.findByEmail("mixed.case@example.com")).isPresent();
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(registerJson("MIXED.case@example.COM", "WELCOME2024")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Email уже зарегистрирован"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"mixed.CASE@EXAMPLE.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
     @Test
     public void whenInvalidInvitation_thenReturnsError() throws Exception {
         RegisterRequest request = new RegisterRequest();
@@ -104,4 +135,73 @@ public class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Неверный код приглашения"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenInvitationAlreadyUsed_thenReturnsError() throws Exception {
+        RegisterRequest first = new RegisterRequest();
+        first.setEmail("first@example.com");
+        first.setPassword("password123");
+        first.setInvitationCode("WELCOME2024");
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isOk());
+
+        RegisterRequest second = new RegisterRequest();
+        second.setEmail("second@example.com");
+        second.setPassword("password123");
+        second.setInvitationCode("WELCOME2024");
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Код приглашения уже использован"));
+
+        org.assertj.core.api.Assertions.assertThat(userRepository.existsByEmail("second@example.com")).isFalse();
+    }
+
+    @Test
+    public void whenSameInvitationUsedConcurrently_thenOnlyOneUserRegistered() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                RegisterRequest request = new RegisterRequest();
+                request.setEmail("racer" + i + "@example.com");
+                request.setPassword("password123");
+                request.setInvitationCode("WELCOME2024");
+                String body = objectMapper.writeValueAsString(request);
+
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/auth/register")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                if (result.get(30, TimeUnit.SECONDS) == 200) {
+                    succeeded++;
+                }
+            }
+
+            // Инвайт занимается одним UPDATE ... WHERE used = false, поэтому его получает ровно один запрос
+            org.assertj.core.api.Assertions.assertThat(succeeded).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(userRepository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String registerJson(String email, String invitationCode) {
+        return "{\"email\":\"" + email + "\",\"password\":\"password123\",\"invitationCode\":\"" + invitationCode + "\"}";
+    }
+}
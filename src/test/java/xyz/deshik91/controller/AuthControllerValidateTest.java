@@ -1,7 +1,8 @@
 package xyz.deshik91.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,15 +11,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import xyz.deshik91.dto.request.BatchValidateRequest;
 import xyz.deshik91.dto.request.RegisterRequest;
 import xyz.deshik91.dto.response.AuthResponse;
 import xyz.deshik91.entity.InvitationEntity;
 import xyz.deshik91.repository.InvitationRepository;
 import xyz.deshik91.repository.UserRepository;
+import xyz.deshik91.security.SigningKeyRing;
+import xyz.deshik91.security.VerifiedTokenCache;
 
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +45,15 @@ public class AuthControllerValidateTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private SigningKeyRing signingKeyRing;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private String accessToken;
     private String refreshToken;
     private String userEmail;
@@ -98,6 +113,41 @@ public class AuthControllerValidateTest {
                 .andExpect(jsonPath("$.tokenType").value("refresh"));
     }
 
+    @Test
+    void whenSameTokenValidatedTwice_thenSecondCallHitsCache() throws Exception {
+        tokenCache.invalidateAll();
+        double hitsBefore = cacheHits();
+
+        mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(userEmail))
+                .andExpect(jsonPath("$.valid").value(true));
+
+        assertThat(cacheHits()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void whenBatchValidate_thenReturnsResultPerTokenInOrder() throws Exception {
+        BatchValidateRequest request = new BatchValidateRequest();
+        request.setTokens(List.of(accessToken, "invalid.token.here", refreshToken));
+
+        mockMvc.perform(post("/api/auth/validate/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].valid").value(true))
+                .andExpect(jsonPath("$[0].email").value(userEmail))
+                .andExpect(jsonPath("$[0].tokenType").value("access"))
+                .andExpect(jsonPath("$[1].valid").value(false))
+                .andExpect(jsonPath("$[2].valid").value(true))
+                .andExpect(jsonPath("$[2].tokenType").value("refresh"));
+    }
+
     @Test
     void whenNoBearerPrefix_thenReturnsUnauthorized() throws Exception {
         mockMvc.perform(get("/api/auth/validate")
@@ -150,7 +200,8 @@ public class AuthControllerValidateTest {
                 .claim("type", "access")
                 .setIssuedAt(new Date(System.currentTimeMillis() - 1000 * 60 * 60)) // час назад
                 .setExpiration(new Date(System.currentTimeMillis() - 1000 * 60)) // истек минуту назад
-                .signWith(Keys.hmacShaKeyFor("mySecretKeyForJWTTokenGeneration2024VeryLongAndSecure".getBytes()))
+                .setHeaderParam("kid", signingKeyRing.current().kid())
+                .signWith(signingKeyRing.current().privateKey(), SignatureAlgorithm.ES256)  // настоящий ключ сервиса - отказ только из-за exp
                 .compact();
 
         mockMvc.perform(get("/api/auth/validate")
@@ -158,4 +209,12 @@ public class AuthControllerValidateTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.valid").value(false));
     }
-}
\ No newline at end of file
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "auth.token.cache")
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+    }
+}
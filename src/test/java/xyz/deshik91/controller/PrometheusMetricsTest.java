@@ -0,0 +1,84 @@
+package xyz.deshik91.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+public class PrometheusMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Test
+    void whenAuthRequestsMade_thenPrometheusExposesTimersByOutcome() throws Exception {
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("METRICS2024");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(3600));
+        invitation.setCreatedAt(Instant.now());
+        invitationRepository.save(invitation);
+
+        RegisterRequest register = new RegisterRequest();
+        register.setEmail("metrics@example.com");
+        register.setPassword("password123");
+        register.setInvitationCode("METRICS2024");
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(register)))
+                .andExpect(status().isOk());
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail("metrics@example.com");
+        login.setPassword("wrong-password");
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/auth/validate").header("Authorization", "Bearer not-a-jwt"))
+                .andExpect(status().isUnauthorized());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(metrics)
+                .contains("auth_operation_seconds_count{operation=\"register\",outcome=\"success\"")
+                .contains("auth_operation_seconds_count{operation=\"login\",outcome=\"bad_credentials\"")
+                .contains("auth_operation_seconds_count{operation=\"validate\",outcome=\"invalid\"")
+                .contains("auth_operation_seconds_bucket")
+                .contains("auth_password_hash_seconds_count")
+                .contains("auth_password_verify_seconds_count{outcome=\"mismatch\"")
+                .contains("auth_jwt_sign_seconds_count{type=\"access\"")
+                .contains("auth_jwt_parse_seconds_count{outcome=\"invalid\"")
+                .contains("spring_data_repository_invocations_seconds_bucket")
+                .contains("method=\"findByEmail\"")
+                .contains("cache_gets_total{cache=\"auth.token.cache\"")
+                .contains("http_server_requests_seconds_bucket");
+    }
+}
@@ -0,0 +1,35 @@
+package xyz.deshik91.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestTimingsTest {
+
+    private static final Pattern ALLOC = Pattern.compile("alloc;desc=\"(\\d+)\"");
+
+    @Test
+    void whenWorkIsOffloaded_thenItsAllocationsCountForTheRequest() throws Exception {
+        RequestTimings.enable();
+        RequestTimings timings = RequestTimings.start();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // Как BCrypt в пуле хеширования: поток запроса только ждет результата
+            Callable<Integer> task = RequestTimings.trackAllocations(() -> new byte[4 * 1024 * 1024].length);
+            assertThat(pool.submit(task).get()).isPositive();
+
+            Matcher alloc = ALLOC.matcher(timings.toHeader());
+            assertThat(alloc.find()).isTrue();
+            assertThat(Long.parseLong(alloc.group(1))).isGreaterThanOrEqualTo(4L * 1024 * 1024);
+        } finally {
+            pool.shutdownNow();
+            RequestTimings.stop();
+        }
+    }
+}
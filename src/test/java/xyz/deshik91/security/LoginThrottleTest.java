@@ -0,0 +1,37 @@
+package xyz.deshik91.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import xyz.deshik91.exception.TooManyRequestsException;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LoginThrottleTest {
+
+    @Test
+    void whenIpLimitNotEnabled_thenClientsBehindOneProxyAreNotLimitedTogether() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), true, 1024,
+                5, 1, false, 5, 1, "");
+
+        // Все запросы с адреса балансировщика, email разные - лимит по email не срабатывает, по IP выключен
+        assertThatCode(() -> {
+            for (int i = 0; i < 100; i++) {
+                throttle.check("user" + i + "@example.com", "10.0.0.1");
+            }
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    void whenIpLimitEnabled_thenOneAddressIsLimited() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), true, 1024,
+                5, 1, true, 5, 1, "native");
+
+        for (int i = 0; i < 5; i++) {
+            throttle.check("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> throttle.check("next@example.com", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+}
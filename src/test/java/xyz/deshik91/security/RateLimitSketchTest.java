@@ -0,0 +1,75 @@
+package xyz.deshik91.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitSketchTest {
+
+    // Пополнение раз в минуту - за время теста ведро не пополняется
+    private static final int BURST = 5;
+    private static final int PER_MINUTE = 1;
+
+    @Test
+    void whenAttemptsRejected_thenStateIsUnchanged() {
+        RateLimitSketch sketch = new RateLimitSketch(1024, BURST, PER_MINUTE);
+        long now = TimeUnit.MINUTES.toNanos(1);
+
+        for (int i = 0; i < BURST; i++) {
+            assertThat(sketch.tryAcquire("victim@example.com", now)).isZero();
+        }
+        long wait = sketch.tryAcquire("victim@example.com", now);
+        assertThat(wait).isPositive();
+
+        // Отказы ничего не списывают: ожидание не растет, и через одно пополнение попытка снова проходит
+        for (int i = 0; i < 100; i++) {
+            assertThat(sketch.tryAcquire("victim@example.com", now)).isEqualTo(wait);
+        }
+        assertThat(sketch.tryAcquire("victim@example.com", now + wait)).isZero();
+    }
+
+    @Test
+    void whenParallelBurstForOneKey_thenThrottleHolds() throws Exception {
+        RateLimitSketch sketch = new RateLimitSketch(1024, BURST, PER_MINUTE);
+        long now = TimeUnit.MINUTES.toNanos(1);
+
+        int threads = 16;
+        int attemptsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (sketch.tryAcquire("burst@example.com", now) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+
+            // Каждая строка пропускает не больше BURST; в гонке строки могут пропустить разные попытки
+            assertThat(allowed).isBetween(BURST, 2 * BURST);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package xyz.deshik91.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SigningKeyRingTest {
+
+    @TempDir
+    Path keysDir;
+
+    @Test
+    void whenNewKeyAdded_thenItSignsAndOldTokensStillVerify() throws Exception {
+        writeKeyPair("2026-01");
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 60_000, 0);
+        JwtUtil jwtUtil = new JwtUtil(ring, new SimpleMeterRegistry());
+        String oldKid = ring.current().kid();
+        String oldToken = jwtUtil.generateAccessToken("rotate@example.com");
+
+        writeKeyPair("2026-04");
+        ring.reload();
+
+        assertThat(ring.current().kid()).isNotEqualTo(oldKid);
+        assertThat(jwtUtil.parseToken(oldToken).subject()).isEqualTo("rotate@example.com");
+        assertThat(jwtUtil.publicJwks()).hasSize(2);
+
+        // Старый ключ удален с диска - его токены принимаются до конца срока хранения
+        Files.delete(keysDir.resolve("2026-01.key.pem"));
+        Files.delete(keysDir.resolve("2026-01.pub.pem"));
+        ring.reload();
+
+        assertThat(ring.verificationKey(oldKid)).isNotNull();
+        assertThat(jwtUtil.parseToken(oldToken).subject()).isEqualTo("rotate@example.com");
+    }
+
+    @Test
+    void whenNewKeyJustPublished_thenItOnlyVerifiesUntilActivationDelayPasses() throws Exception {
+        writeKeyPair("2026-01");
+        publishedAgo("2026-01", Duration.ofHours(1));
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 60_000, 360_000);
+        String oldKid = ring.current().kid();
+
+        writeKeyPair("2026-04");
+        ring.reload();
+
+        // Новый ключ уже в JWKS, но подписывает прежний - другие узлы и кеши JWKS еще могут его не знать
+        assertThat(ring.current().kid()).isEqualTo(oldKid);
+        assertThat(ring.verificationKeys()).hasSize(2);
+
+        publishedAgo("2026-04", Duration.ofMinutes(7));
+        ring.reload();
+
+        assertThat(ring.current().kid()).isNotEqualTo(oldKid);
+    }
+
+    @Test
+    void whenNoKeyPublishedLongEnough_thenNewestKeySigns() throws Exception {
+        writeKeyPair("2026-01");
+
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 60_000, 360_000);
+
+        assertThat(ring.current()).isNotNull();
+    }
+
+    @Test
+    void whenNodeRestartsAfterRotation_thenRemovedKeyStillVerifies() throws Exception {
+        writeKeyPair("2026-01");
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 60_000, 0);
+        String oldToken = new JwtUtil(ring, new SimpleMeterRegistry()).generateAccessToken("restart@example.com");
+
+        writeKeyPair("2026-04");
+        Files.delete(keysDir.resolve("2026-01.key.pem"));
+        Files.delete(keysDir.resolve("2026-01.pub.pem"));
+        ring.reload();
+
+        // Новый экземпляр ничего не знает о прежнем снимке - выведенный ключ берется из retired/
+        SigningKeyRing restarted = new SigningKeyRing(keysDir.toString(), false, 60_000, 0);
+        JwtUtil jwtUtil = new JwtUtil(restarted, new SimpleMeterRegistry());
+
+        assertThat(jwtUtil.parseToken(oldToken).subject()).isEqualTo("restart@example.com");
+        assertThat(jwtUtil.publicJwks()).hasSize(2);
+    }
+
+    @Test
+    void whenKeysDirIsNotSet_thenStartupFailsUnlessEphemeralKeyAllowed() {
+        assertThatThrownBy(() -> new SigningKeyRing("", false, 60_000, 0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("auth.jwt.keys-dir");
+
+        assertThat(new SigningKeyRing("", true, 60_000, 0).current()).isNotNull();
+    }
+
+    @Test
+    void whenRetentionIsOver_thenTokensOfRemovedKeyAreRejected() throws Exception {
+        writeKeyPair("2026-01");
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 0, 0);
+        JwtUtil jwtUtil = new JwtUtil(ring, new SimpleMeterRegistry());
+        String oldToken = jwtUtil.generateAccessToken("rotate@example.com");
+
+        writeKeyPair("2026-04");
+        Files.delete(keysDir.resolve("2026-01.key.pem"));
+        Files.delete(keysDir.resolve("2026-01.pub.pem"));
+        ring.reload();
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(oldToken)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void whenKeyFileIsBroken_thenPreviousKeysStayInUse() throws Exception {
+        writeKeyPair("2026-01");
+        SigningKeyRing ring = new SigningKeyRing(keysDir.toString(), false, 0, 0);
+        String kid = ring.current().kid();
+
+        Files.writeString(keysDir.resolve("2026-04.pub.pem"), "not a key");
+        ring.reload();
+
+        assertThat(ring.current().kid()).isEqualTo(kid);
+    }
+
+    private void writeKeyPair(String name) throws Exception {
+        KeyPair keyPair = JwtKeys.generate();
+        Files.writeString(keysDir.resolve(name + ".key.pem"), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        Files.writeString(keysDir.resolve(name + ".pub.pem"), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+    }
+
+    private void publishedAgo(String name, Duration age) throws Exception {
+        Files.setLastModifiedTime(keysDir.resolve(name + ".pub.pem"), FileTime.from(Instant.now().minus(age)));
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,98 @@
+package xyz.deshik91.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import xyz.deshik91.dto.request.LoginRequest;
+import xyz.deshik91.dto.request.RegisterRequest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что BCrypt в register/login выполняется без взятого из пула соединения.
+ */
+@SpringBootTest
+public class AuthServiceConnectionTest {
+
+    // Сколько соединений было занято в момент каждого вызова encode/matches
+    static final List<Integer> activeConnectionsDuringHashing = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class RecordingPasswordEncoderConfig {
+
+        @Bean
+        @Primary
+        PasswordEncoder recordingPasswordEncoder(DataSource dataSource) {
+            HikariDataSource hikari = (HikariDataSource) dataSource;
+            PasswordEncoder delegate = new BCryptPasswordEncoder(4);
+            return new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    activeConnectionsDuringHashing.add(hikari.getHikariPoolMXBean().getActiveConnections());
+                    return delegate.encode(rawPassword);
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    activeConnectionsDuringHashing.add(hikari.getHikariPoolMXBean().getActiveConnections());
+                    return delegate.matches(rawPassword, encodedPassword);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        invitationRepository.deleteAll();
+
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode("WELCOME2024");
+        invitation.setUsed(false);
+        invitation.setExpiresAt(Instant.now().plusSeconds(30 * 24 * 60 * 60));
+        invitation.setCreatedAt(Instant.now());
+        invitationRepository.save(invitation);
+
+        activeConnectionsDuringHashing.clear();
+    }
+
+    @Test
+    void whenRegisterAndLogin_thenNoConnectionHeldWhileHashing() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail("pool@example.com");
+        registerRequest.setPassword("password123");
+        registerRequest.setInvitationCode("WELCOME2024");
+        authService.register(registerRequest);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("pool@example.com");
+        loginRequest.setPassword("password123");
+        authService.login(loginRequest);
+
+        assertThat(activeConnectionsDuringHashing).hasSize(2).containsOnly(0);
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.deshik91.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import xyz.deshik91.entity.InvitationEntity;
+import xyz.deshik91.entity.RevokedTokenEntity;
+import xyz.deshik91.entity.SchedulerLockEntity;
+import xyz.deshik91.entity.SessionEntity;
+import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.repository.InvitationRepository;
+import xyz.deshik91.repository.RevokedTokenRepository;
+import xyz.deshik91.repository.SchedulerLockRepository;
+import xyz.deshik91.repository.SessionRepository;
+import xyz.deshik91.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Маленькие порции без пауз, чтобы очистка прошла несколько порций
+@SpringBootTest(properties = {"auth.sweeper.chunk-size=2", "auth.sweeper.pause-ms=0"})
+public class DataSweeperTest {
+
+    @Autowired
+    private DataSweeper dataSweeper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем БД
+        userRepository.deleteAll();
+        invitationRepository.deleteAll();
+        revokedTokenRepository.deleteAll();
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void whenSweep_thenOnlyStaleRowsAreDeleted() {
+        Instant now = Instant.now();
+        UserEntity user = new UserEntity();
+        user.setEmail("sweeper@example.com");
+        user.setPasswordHash("hash");
+        user.setCreatedAt(now);
+        Long userId = userRepository.save(user).getId();
+
+        for (int i = 0; i < 3; i++) {
+            sessionRepository.save(session(userId, now.minusSeconds(60)));
+            revokedTokenRepository.save(new RevokedTokenEntity(UUID.randomUUID().toString(), now.minusSeconds(60), now));
+            invitationRepository.save(invitation("EXPIRED" + i, false, now.minus(Duration.ofDays(10)), now));
+        }
+        SessionEntity liveSession = sessionRepository.save(session(userId, now.plusSeconds(3600)));
+        revokedTokenRepository.save(new RevokedTokenEntity("live-jti", now.plusSeconds(3600), now));
+        invitationRepository.save(invitation("USED_LONG_AGO", true, now.plus(Duration.ofDays(10)), now.minus(Duration.ofDays(40))));
+        invitationRepository.save(invitation("RECENTLY_EXPIRED", false, now.minus(Duration.ofDays(1)), now));
+        invitationRepository.save(invitation("FRESH", false, now.plus(Duration.ofDays(10)), now));
+
+        double deletedBefore = meterRegistry.counter("auth.sweeper.deleted", "table", "sessions").count();
+
+        dataSweeper.sweep();
+
+        assertThat(sessionRepository.findAll()).extracting(SessionEntity::getJti).containsExactly(liveSession.getJti());
+        assertThat(revokedTokenRepository.findAll()).extracting(RevokedTokenEntity::getJti).containsExactly("live-jti");
+        // Истекший вчера еще в пределах срока хранения
+        assertThat(invitationRepository.findAll()).extracting(InvitationEntity::getCode)
+                .containsExactlyInAnyOrder("RECENTLY_EXPIRED", "FRESH");
+        assertThat(meterRegistry.counter("auth.sweeper.deleted", "table", "sessions").count() - deletedBefore)
+                .isEqualTo(3);
+    }
+
+    @Test
+    void whenScheduledSweep_thenItRunsOnSweeperThread() throws Exception {
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            revokedTokenRepository.save(new RevokedTokenEntity(UUID.randomUUID().toString(), now.minusSeconds(60), now));
+        }
+
+        // Поток планировщика только отдает проход в поток очистки и сразу освобождается
+        dataSweeper.scheduledSweep();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (revokedTokenRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(revokedTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void whenLeaseHeldByAnotherNode_thenOnlyLeaderAcquires() {
+        SchedulerLeaderElection nodeA = new SchedulerLeaderElection(schedulerLockRepository, "node-a");
+        SchedulerLeaderElection nodeB = new SchedulerLeaderElection(schedulerLockRepository, "node-b");
+
+        assertThat(nodeA.tryAcquire("test-task", Duration.ofMinutes(5))).isTrue();
+        assertThat(nodeB.tryAcquire("test-task", Duration.ofMinutes(5))).isFalse();
+        // Лидер продлевает свою аренду
+        assertThat(nodeA.tryAcquire("test-task", Duration.ofMinutes(5))).isTrue();
+
+        // Аренда истекла - задачу забирает другой узел
+        assertThat(nodeA.tryAcquire("short-task", Duration.ofMillis(-1))).isTrue();
+        assertThat(nodeB.tryAcquire("short-task", Duration.ofMinutes(5))).isTrue();
+        assertThat(schedulerLockRepository.findById("short-task")).get()
+                .extracting(SchedulerLockEntity::getOwner).isEqualTo("node-b");
+    }
+
+    private static SessionEntity session(Long userId, Instant expiresAt) {
+        return new SessionEntity(UUID.randomUUID().toString(), userId, "0".repeat(64), Instant.now(), expiresAt);
+    }
+
+    private static InvitationEntity invitation(String code, boolean used, Instant expiresAt, Instant createdAt) {
+        InvitationEntity invitation = new InvitationEntity();
+        invitation.setCode(code);
+        invitation.setUsed(used);
+        invitation.setExpiresAt(expiresAt);
+        invitation.setCreatedAt(createdAt);
+        return invitation;
+    }
+}
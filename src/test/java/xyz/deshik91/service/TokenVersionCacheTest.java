@@ -0,0 +1,69 @@
+package xyz.deshik91.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import xyz.deshik91.store.UserStore;
+import xyz.deshik91.store.UserStore.TokenVersionChange;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenVersionCacheTest {
+
+    private static final long RETENTION_MS = Duration.ofDays(7).toMillis();
+
+    private final UserStore userStore = mock(UserStore.class);
+
+    @Test
+    void whenSyncReadsOlderVersion_thenNewerLocalVersionIsKept() {
+        TokenVersionCache cache = new TokenVersionCache(userStore, RETENTION_MS);
+        // Синхронизация прочитала строку до того, как на этом узле закоммитили выход со всех устройств
+        when(userStore.findTokenVersionsChangedAfter(any()))
+                .thenReturn(List.of(new TokenVersionChange("user@example.com", 1, Instant.now())));
+        cache.advance("user@example.com", 2);
+
+        cache.sync();
+
+        assertThat(cache.current("user@example.com")).isEqualTo(2);
+    }
+
+    @Test
+    void whenSynced_thenOnlyChangesAfterPreviousSyncAreRead() {
+        TokenVersionCache cache = new TokenVersionCache(userStore, RETENTION_MS);
+        when(userStore.findTokenVersionsChangedAfter(any())).thenReturn(List.of());
+
+        Instant start = Instant.now();
+        cache.warmUp();
+        cache.sync();
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(userStore, times(2)).findTokenVersionsChangedAfter(since.capture());
+        // Прогрев - только за срок жизни токенов, дальше - с прошлой синхронизации (с запасом на часы)
+        assertThat(since.getAllValues().get(0)).isBefore(start.minus(Duration.ofDays(6)));
+        assertThat(since.getAllValues().get(1)).isAfter(start.minus(Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void whenChangeOlderThanRetention_thenItIsPurged() {
+        TokenVersionCache cache = new TokenVersionCache(userStore, 1000);
+        when(userStore.findTokenVersionsChangedAfter(any())).thenReturn(List.of(
+                new TokenVersionChange("old@example.com", 3, Instant.now().minusSeconds(10)),
+                new TokenVersionChange("new@example.com", 1, Instant.now())));
+        cache.warmUp();
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.purgeExpired();
+
+        // Все токены с версией ниже 3 давно истекли: для проверки это то же, что версия 0
+        assertThat(cache.current("old@example.com")).isZero();
+        assertThat(cache.current("new@example.com")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,120 @@
+package xyz.deshik91.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+import xyz.deshik91.entity.UserEntity;
+import xyz.deshik91.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Страница меньше числа пользователей, чтобы сверка прошла несколько keyset-страниц
+@SpringBootTest(properties = "auth.user-index.page-size=2")
+public class UserEmailIndexTest {
+
+    @Autowired
+    private UserEmailIndex userEmailIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем БД
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void whenUserDeletedOnAnotherNode_thenIndexAnswersFromMemoryUntilReconcile() {
+        for (String email : List.of("a@example.com", "b@example.com", "c@example.com", "gone@example.com")) {
+            userRepository.save(user(email));
+        }
+
+        // Удаление мимо JPA - так его видит узел, на котором оно не выполнялось
+        jdbcTemplate.update("delete from users where email = ?", "gone@example.com");
+
+        // Попадание в индекс не обращается к БД, поэтому удаленный пользователь еще найден
+        assertThat(userEmailIndex.contains("gone@example.com")).isTrue();
+
+        userEmailIndex.reconcile();
+
+        assertThat(userEmailIndex.containsLocally("gone@example.com")).isFalse();
+        assertThat(userEmailIndex.contains("gone@example.com")).isFalse();
+        assertThat(userEmailIndex.findExisting(List.of("a@example.com", "b@example.com", "c@example.com")))
+                .isEqualTo(Set.of("a@example.com", "b@example.com", "c@example.com"));
+        assertThat(userEmailIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void whenUserInsertedOnAnotherNode_thenReconcilePicksItUp() {
+        userRepository.save(user("local@example.com"));
+        userEmailIndex.reconcile();
+
+        long id = jdbcTemplate.queryForObject("select nextval('users_seq')", Long.class) + 1000;
+        insertRemote(id, "remote@example.com");
+        assertThat(userEmailIndex.containsLocally("remote@example.com")).isFalse();
+
+        userEmailIndex.reconcile();
+
+        assertThat(userEmailIndex.containsLocally("remote@example.com")).isTrue();
+    }
+
+    @Test
+    void whenInsertWithLowerIdWasMissed_thenLaterDeleteIsStillDetected() {
+        UserEntity first = userRepository.save(user("first@example.com"));
+        userRepository.save(user("gone@example.com"));
+        // Строка другого узла из блока последовательности далеко впереди
+        insertRemote(first.getId() + 1000, "high@example.com");
+        userEmailIndex.reconcile();
+
+        // Вставка другого узла с id ниже уже прочитанных: по одному id ее не увидеть,
+        // и число email в индексе становится меньше числа строк
+        insertRemote(first.getId() + 500, "late@example.com");
+        jdbcTemplate.update("delete from users where email = ?", "gone@example.com");
+
+        userEmailIndex.reconcile();
+
+        assertThat(userEmailIndex.containsLocally("gone@example.com")).isFalse();
+        assertThat(userEmailIndex.contains("gone@example.com")).isFalse();
+        assertThat(userEmailIndex.containsLocally("late@example.com")).isTrue();
+        assertThat(userEmailIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void whenTransactionRolledBackAfterFlush_thenEmailIsNotIndexed() {
+        transactionOperations.executeWithoutResult(status -> {
+            userRepository.saveAndFlush(user("phantom@example.com"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(userEmailIndex.containsLocally("phantom@example.com")).isFalse();
+        assertThat(userEmailIndex.contains("phantom@example.com")).isFalse();
+    }
+
+    // Вставка мимо JPA - так ее видит узел, на котором она не выполнялась
+    private void insertRemote(long id, String email) {
+        jdbcTemplate.update("insert into users (id, email, password_hash, created_at, token_version) values (?, ?, ?, ?, 0)",
+                id, email, "hash", Instant.now());
+    }
+
+    private static UserEntity user(String email) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setCreatedAt(Instant.now());
+        return user;
+    }
+}